@@ -0,0 +1,382 @@
+package com.dasith.crud_app.cache;
+
+import com.dasith.crud_app.event.CatalogChangedEvent;
+import com.dasith.crud_app.util.SimHash;
+import com.dasith.crud_app.util.TextNormalizer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache for generated AI agent answers.
+ *
+ * Eviction follows W-TinyLFU: new entries land in a small LRU window, and when the window
+ * overflows its oldest entry only enters the main (segmented LRU) space if it has been
+ * requested more often than the main space's eviction victim. Entries are bounded by count
+ * and by an estimate of their size in bytes, expire after a fixed TTL, and are dropped for a
+ * whole business whenever its catalog changes.
+ *
+ * Keys are normalized prompts (see {@link TextNormalizer#normalizeKey}). When enabled, a miss
+ * on the normalized key falls back to a near-duplicate lookup among the business's entries
+ * using SimHash similarity. Hits are counted per tier: exact (same prompt text), normalized
+ * (same key, different wording) and near-duplicate.
+ */
+@Component
+@Slf4j
+public class AIResponseCache {
+
+    public record Key(Long businessId, String normalizedPrompt) {}
+
+    private enum Segment { WINDOW, PROBATION, PROTECTED }
+
+    private static final class Node {
+        final Key key;
+        final long simHash;
+        String prompt;
+        String value;
+        long bytes;
+        long expiresAt;
+        Segment segment;
+
+        Node(Key key, long simHash) {
+            this.key = key;
+            this.simHash = simHash;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final boolean nearDuplicateEnabled;
+    private final double nearDuplicateThreshold;
+    private final int nearDuplicateMinTerms;
+
+    private final Map<Key, Node> data = new HashMap<>();
+    // Insertion-ordered; an entry is moved to the tail on access, so the head is the LRU entry.
+    private final LinkedHashMap<Key, Node> window = new LinkedHashMap<>();
+    private final LinkedHashMap<Key, Node> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<Key, Node> protectedSegment = new LinkedHashMap<>();
+    private final Map<Long, Set<Key>> keysByBusiness = new HashMap<>();
+    // Invalidations per business; an answer generated before the latest one is not stored.
+    private final Map<Long, Long> epochs = new HashMap<>();
+    private final FrequencySketch sketch;
+    private long totalBytes;
+
+    private final LongAdder exactHits = new LongAdder();
+    private final LongAdder normalizedHits = new LongAdder();
+    private final LongAdder nearDuplicateHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public AIResponseCache(@Value("${app.aiagent.cache.max-entries:10000}") int maxEntries,
+                           @Value("${app.aiagent.cache.max-bytes:67108864}") long maxBytes,
+                           @Value("${app.aiagent.cache.ttl:3600000}") long ttlMillis,
+                           @Value("${app.aiagent.cache.near-duplicate.enabled:true}") boolean nearDuplicateEnabled,
+                           @Value("${app.aiagent.cache.near-duplicate.threshold:0.92}") double nearDuplicateThreshold,
+                           @Value("${app.aiagent.cache.near-duplicate.min-terms:3}") int nearDuplicateMinTerms,
+                           MeterRegistry meterRegistry) {
+        this.maxEntries = Math.max(2, maxEntries);
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.windowCapacity = Math.max(1, this.maxEntries / 100);
+        this.protectedCapacity = (int) ((this.maxEntries - windowCapacity) * 0.8);
+        this.sketch = new FrequencySketch(this.maxEntries);
+        this.nearDuplicateEnabled = nearDuplicateEnabled;
+        this.nearDuplicateThreshold = nearDuplicateThreshold;
+        this.nearDuplicateMinTerms = nearDuplicateMinTerms;
+
+        String name = "aiagent-responses";
+        FunctionCounter.builder("cache.gets", exactHits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit").tag("tier", "exact").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", normalizedHits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit").tag("tier", "normalized").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", nearDuplicateHits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit").tag("tier", "near_duplicate").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", name).tag("result", "miss").tag("tier", "none").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", name).register(meterRegistry);
+        FunctionCounter.builder("cache.expirations", expirations, LongAdder::sum)
+                .tag("cache", name).register(meterRegistry);
+        FunctionCounter.builder("cache.invalidations", invalidations, LongAdder::sum)
+                .tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.size", this, AIResponseCache::size)
+                .tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.weight.bytes", this, AIResponseCache::weightedBytes)
+                .tag("cache", name).register(meterRegistry);
+    }
+
+    public Key keyFor(Long businessId, String prompt) {
+        return new Key(businessId, TextNormalizer.normalizeKey(prompt));
+    }
+
+    /**
+     * Returns the cached answer for the prompt, or null when neither its normalized key nor
+     * (if enabled) a near-duplicate question of the same business is cached.
+     */
+    public synchronized String get(Key key, String prompt) {
+        sketch.increment(key);
+        Node node = live(data.get(key));
+        if (node != null) {
+            (prompt.equals(node.prompt) ? exactHits : normalizedHits).increment();
+        } else {
+            node = nearDuplicate(key);
+            if (node == null) {
+                misses.increment();
+                return null;
+            }
+            nearDuplicateHits.increment();
+        }
+        onHit(node);
+        return node.value;
+    }
+
+    public synchronized void put(Key key, String prompt, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        long bytes = estimateBytes(key, value);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+
+        Node node = data.get(key);
+        if (node != null) {
+            totalBytes += bytes - node.bytes;
+            node.prompt = prompt;
+            node.value = value;
+            node.bytes = bytes;
+            node.expiresAt = expiresAt;
+            onHit(node);
+        } else {
+            node = new Node(key, SimHash.of(splitTerms(key)));
+            node.prompt = prompt;
+            node.value = value;
+            node.bytes = bytes;
+            node.expiresAt = expiresAt;
+            node.segment = Segment.WINDOW;
+            data.put(key, node);
+            window.put(key, node);
+            keysByBusiness.computeIfAbsent(key.businessId(), id -> new HashSet<>()).add(key);
+            totalBytes += bytes;
+
+            if (window.size() > windowCapacity) {
+                Node candidate = eldest(window);
+                window.remove(candidate.key);
+                admit(candidate);
+            }
+        }
+        enforceByteBound();
+    }
+
+    /**
+     * The business's invalidation epoch. Read it before generating an answer and pass it to
+     * {@link #put(Key, String, String, long)}.
+     */
+    public synchronized long epoch(Long businessId) {
+        return epochs.getOrDefault(businessId, 0L);
+    }
+
+    /**
+     * Stores the answer unless the business was invalidated after {@code epoch} was read, so
+     * an answer based on the old catalog cannot outlive the invalidation.
+     */
+    public synchronized void put(Key key, String prompt, String value, long epoch) {
+        if (epoch(key.businessId()) == epoch) {
+            put(key, prompt, value);
+        }
+    }
+
+    /**
+     * Drops every cached answer for the given business.
+     */
+    public synchronized void invalidateBusiness(Long businessId) {
+        epochs.merge(businessId, 1L, Long::sum);
+        Set<Key> keys = keysByBusiness.remove(businessId);
+        if (keys == null) {
+            return;
+        }
+        for (Key key : new ArrayList<>(keys)) {
+            Node node = data.get(key);
+            if (node != null) {
+                remove(node);
+            }
+        }
+        invalidations.add(keys.size());
+        log.debug("Invalidated {} cached AI responses for business {}", keys.size(), businessId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidateBusiness(event.businessId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.aiagent.cache.sweep-interval:60000}")
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        List<Node> expired = new ArrayList<>();
+        for (Node node : data.values()) {
+            if (node.expiresAt <= now) {
+                expired.add(node);
+            }
+        }
+        expired.forEach(this::remove);
+        expirations.add(expired.size());
+    }
+
+    public synchronized int size() {
+        return data.size();
+    }
+
+    public synchronized long weightedBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the node if it has not expired; expired nodes are removed on the way.
+     */
+    private Node live(Node node) {
+        if (node != null && node.expiresAt <= System.currentTimeMillis()) {
+            remove(node);
+            expirations.increment();
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Most similar cached question of the same business, if it clears the threshold. Only the
+     * business's own entries are scanned, with one XOR and bit count each.
+     */
+    private Node nearDuplicate(Key key) {
+        List<String> terms = splitTerms(key);
+        if (!nearDuplicateEnabled || terms.size() < nearDuplicateMinTerms) {
+            return null;
+        }
+        Set<Key> candidates = keysByBusiness.get(key.businessId());
+        if (candidates == null) {
+            return null;
+        }
+        long fingerprint = SimHash.of(terms);
+        Node best = null;
+        double bestSimilarity = nearDuplicateThreshold;
+        for (Key candidateKey : new ArrayList<>(candidates)) {
+            Node candidate = data.get(candidateKey);
+            double similarity = SimHash.similarity(fingerprint, candidate.simHash);
+            if (similarity >= bestSimilarity && live(candidate) != null) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+        return best;
+    }
+
+    private static List<String> splitTerms(Key key) {
+        return key.normalizedPrompt().isEmpty() ? List.of() : List.of(key.normalizedPrompt().split(" "));
+    }
+
+    private void onHit(Node node) {
+        switch (node.segment) {
+            case WINDOW -> touch(window, node);
+            case PROTECTED -> touch(protectedSegment, node);
+            case PROBATION -> {
+                probation.remove(node.key);
+                node.segment = Segment.PROTECTED;
+                protectedSegment.put(node.key, node);
+                while (protectedSegment.size() > protectedCapacity) {
+                    Node demoted = eldest(protectedSegment);
+                    protectedSegment.remove(demoted.key);
+                    demoted.segment = Segment.PROBATION;
+                    probation.put(demoted.key, demoted);
+                }
+            }
+        }
+    }
+
+    private void admit(Node candidate) {
+        int mainCapacity = maxEntries - windowCapacity;
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            candidate.segment = Segment.PROBATION;
+            probation.put(candidate.key, candidate);
+            return;
+        }
+        Node victim = !probation.isEmpty() ? eldest(probation) : eldest(protectedSegment);
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            evict(victim);
+            candidate.segment = Segment.PROBATION;
+            probation.put(candidate.key, candidate);
+        } else {
+            evict(candidate);
+        }
+    }
+
+    private void enforceByteBound() {
+        while (totalBytes > maxBytes && !data.isEmpty()) {
+            Node victim;
+            if (!probation.isEmpty()) {
+                victim = eldest(probation);
+            } else if (!window.isEmpty()) {
+                victim = eldest(window);
+            } else {
+                victim = eldest(protectedSegment);
+            }
+            evict(victim);
+        }
+    }
+
+    private void evict(Node node) {
+        remove(node);
+        evictions.increment();
+    }
+
+    private void remove(Node node) {
+        data.remove(node.key);
+        segment(node.segment).remove(node.key);
+        totalBytes -= node.bytes;
+        Set<Key> keys = keysByBusiness.get(node.key.businessId());
+        if (keys != null) {
+            keys.remove(node.key);
+            if (keys.isEmpty()) {
+                keysByBusiness.remove(node.key.businessId());
+            }
+        }
+    }
+
+    private LinkedHashMap<Key, Node> segment(Segment segment) {
+        return switch (segment) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedSegment;
+        };
+    }
+
+    private static void touch(LinkedHashMap<Key, Node> segment, Node node) {
+        segment.remove(node.key);
+        segment.put(node.key, node);
+    }
+
+    private static Node eldest(LinkedHashMap<Key, Node> segment) {
+        return segment.values().iterator().next();
+    }
+
+    private static long estimateBytes(Key key, String value) {
+        // Two bytes per char for the strings (key and original prompt) plus a rough allowance for the node and map entries.
+        return 2L * (2 * key.normalizedPrompt().length() + value.length()) + 128;
+    }
+}
@@ -0,0 +1,169 @@
+package com.dasith.crud_app.cache;
+
+import com.dasith.crud_app.llm.LlmSettings;
+import com.dasith.crud_app.model.Business;
+import com.dasith.crud_app.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * The catalog-dependent part of an AI agent prompt for one business, rendered once and then
+ * patched product by product. Holds at most {@code maxProducts} products (lowest ids first);
+ * when a catalog is larger the context is marked truncated.
+ *
+ * Instead of the whole catalog, each prompt lists only the products most relevant to the
+ * question (BM25 over name, category and description), up to {@code topK} products and an
+ * approximate token budget. Questions that match nothing get the first products in id order.
+ *
+ * The business's LLM settings (model, timeout, retries) are loaded along with the catalog.
+ *
+ * {@link #fingerprint()} identifies the content the answers were based on (header, model and
+ * listed products). It is order independent and patched with the products, so equal catalogs
+ * give equal fingerprints, also across restarts.
+ */
+public class BusinessPromptContext {
+
+    // Rough English average, good enough for budgeting prompt size.
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final String header;
+    private final LlmSettings llmSettings;
+    private final int maxProducts;
+    private final int topK;
+    private final int tokenBudget;
+    private final TreeMap<Long, String> productLines = new TreeMap<>();
+    private final ProductRetrievalIndex index = new ProductRetrievalIndex();
+    private final long headerHash;
+    private long productsHash;
+    private boolean truncated;
+
+    public BusinessPromptContext(Business business, List<Product> products, LlmSettings llmSettings,
+                                 int maxProducts, int topK, int tokenBudget) {
+        this.header = "You are a friendly, enthusiastic, and knowledgeable AI assistant for " +
+                business.getName() + ". Your primary goal is to provide outstanding customer service by answering questions accurately and helping customers find the perfect products to meet their needs. " +
+                "Business description: " + business.getDescription() + " " +
+                "Business industry: " + business.getIndustry() + " " +
+                "Business Type: " + business.getType();
+        this.llmSettings = llmSettings;
+        this.headerHash = hash(header + '\n' + llmSettings.model());
+        this.maxProducts = maxProducts;
+        this.topK = topK;
+        this.tokenBudget = tokenBudget;
+        for (Product product : products) {
+            if (productLines.size() >= maxProducts) {
+                truncated = true;
+                break;
+            }
+            add(product);
+        }
+    }
+
+    /**
+     * Applies a created or updated product.
+     */
+    public synchronized void productSaved(Product product) {
+        if (productLines.containsKey(product.getId()) || productLines.size() < maxProducts) {
+            add(product);
+        } else {
+            truncated = true;
+        }
+    }
+
+    /**
+     * Applies a deleted product. Returns false when the context can no longer be patched
+     * (a truncated catalog lost a product and would need the next one from the database).
+     */
+    public synchronized boolean productDeleted(Long productId) {
+        String removed = productLines.remove(productId);
+        if (removed == null) {
+            return true;
+        }
+        productsHash ^= hash(productId + removed);
+        index.remove(productId);
+        return !truncated;
+    }
+
+    public String render(String userPrompt) {
+        return header + "\nProducts details:\n" + relevantProducts(userPrompt) + "\n\nUser: " + userPrompt + "\nAI:";
+    }
+
+    public LlmSettings llmSettings() {
+        return llmSettings;
+    }
+
+    public synchronized long fingerprint() {
+        return headerHash ^ productsHash;
+    }
+
+    public synchronized int productCount() {
+        return productLines.size();
+    }
+
+    synchronized String relevantProducts(String userPrompt) {
+        if (productLines.isEmpty()) {
+            return "No product or service available.";
+        }
+
+        List<String> candidates = new ArrayList<>();
+        for (Long productId : index.search(userPrompt, topK)) {
+            candidates.add(productLines.get(productId));
+        }
+        if (candidates.isEmpty()) {
+            for (String line : productLines.values()) {
+                if (candidates.size() >= topK) {
+                    break;
+                }
+                candidates.add(line);
+            }
+        }
+
+        int charBudget = tokenBudget * CHARS_PER_TOKEN;
+        StringBuilder builder = new StringBuilder();
+        int listed = 0;
+        for (String line : candidates) {
+            if (listed > 0 && builder.length() + line.length() > charBudget) {
+                break;
+            }
+            builder.append(line);
+            listed++;
+        }
+        if (listed < productLines.size() || truncated) {
+            builder.append("(Only the ").append(listed)
+                    .append(" products most relevant to the question are listed; the catalog has more.)\n");
+        }
+        return builder.toString();
+    }
+
+    private void add(Product product) {
+        String line = formatProduct(product);
+        String previous = productLines.put(product.getId(), line);
+        if (previous != null) {
+            productsHash ^= hash(product.getId() + previous);
+        }
+        productsHash ^= hash(product.getId() + line);
+        index.put(product);
+    }
+
+    private static long hash(String value) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < value.length(); i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static String formatProduct(Product product) {
+        return "- " +
+                "Product Name: " + product.getName() + ", " +
+                "Description: " + product.getDescription() + ", " +
+                "Price: " + product.getPrice() + ", " +
+                "Category: " + product.getCategory() + ", " +
+                "Stock: " + product.getStock() +
+                "\n";
+    }
+}
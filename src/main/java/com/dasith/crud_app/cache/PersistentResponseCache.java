@@ -0,0 +1,281 @@
+package com.dasith.crud_app.cache;
+
+import com.dasith.crud_app.event.CatalogChangedEvent;
+import com.dasith.crud_app.model.AIResponseCacheEntry;
+import com.dasith.crud_app.repository.AIResponseCacheRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Second-level, database-backed cache for AI agent answers, so that a restart does not
+ * send every popular question back to the model.
+ *
+ * Writes and hit counts are buffered in memory and flushed in one transaction every
+ * {@code flush-interval} (write-behind); when the buffer is full new writes are dropped,
+ * which only costs a future cache miss. Each entry stores the fingerprint of the prompt
+ * context it was generated from and is only served while that fingerprint still matches.
+ * Catalog changes delete the business's entries on the next flush, expired entries are
+ * compacted periodically. On startup the hottest entries of every business are preloaded
+ * into memory, where {@link #get} serves them without a database round trip, subject to the
+ * same fingerprint check; the caller then promotes them to the {@link AIResponseCache}.
+ *
+ * Lookups block on the database and must run on the AI executor.
+ */
+@Component
+@Slf4j
+public class PersistentResponseCache {
+
+    private record PendingWrite(AIResponseCache.Key key, String response, long contextVersion, LocalDateTime createdAt) {}
+
+    private final AIResponseCacheRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxPending;
+    private final int warmPerBusiness;
+    private final int warmMaxEntries;
+
+    private final Map<AIResponseCache.Key, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    private final Map<AIResponseCache.Key, LongAdder> pendingHits = new ConcurrentHashMap<>();
+    private final Set<Long> pendingInvalidations = ConcurrentHashMap.newKeySet();
+    // Preloaded on startup, each served at most once and only for a matching context version
+    private final Map<AIResponseCache.Key, AIResponseCacheEntry> warmed = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public PersistentResponseCache(AIResponseCacheRepository repository,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${app.aiagent.l2.enabled:true}") boolean enabled,
+                                   @Value("${app.aiagent.l2.ttl:604800000}") long ttlMillis,
+                                   @Value("${app.aiagent.l2.max-pending:10000}") int maxPending,
+                                   @Value("${app.aiagent.l2.warm.per-business:50}") int warmPerBusiness,
+                                   @Value("${app.aiagent.l2.warm.max-entries:5000}") int warmMaxEntries,
+                                   MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.maxPending = maxPending;
+        this.warmPerBusiness = warmPerBusiness;
+        this.warmMaxEntries = warmMaxEntries;
+
+        String name = "aiagent-responses-l2";
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", name).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", stale, LongAdder::sum)
+                .tag("cache", name).tag("result", "stale").register(meterRegistry);
+        FunctionCounter.builder("cache.writes.dropped", dropped, LongAdder::sum)
+                .tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.writes.pending", pendingWrites, Map::size)
+                .tag("cache", name).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the stored answer if it was generated from the given context version and has
+     * not expired, otherwise null. Database errors count as a miss.
+     */
+    public String get(AIResponseCache.Key key, long contextVersion) {
+        if (!enabled) {
+            return null;
+        }
+        PendingWrite pending = pendingWrites.get(key);
+        if (pending != null && pending.contextVersion() == contextVersion) {
+            hits.increment();
+            return pending.response();
+        }
+        AIResponseCacheEntry warm = warmed.remove(key);
+        if (warm != null && !warm.getExpiresAt().isBefore(LocalDateTime.now())) {
+            if (warm.getContextVersion() != contextVersion) {
+                stale.increment();
+                return null;
+            }
+            hits.increment();
+            recordHit(key);
+            return warm.getResponse();
+        }
+
+        Optional<AIResponseCacheEntry> entry;
+        try {
+            entry = repository.findByBusinessIdAndPromptHash(key.businessId(), hash(key.normalizedPrompt()));
+        } catch (RuntimeException e) {
+            log.warn("Persistent AI cache lookup failed: {}", e.getMessage());
+            misses.increment();
+            return null;
+        }
+        if (entry.isEmpty() || entry.get().getExpiresAt().isBefore(LocalDateTime.now())) {
+            misses.increment();
+            return null;
+        }
+        if (entry.get().getContextVersion() != contextVersion) {
+            stale.increment();
+            return null;
+        }
+        hits.increment();
+        recordHit(key);
+        return entry.get().getResponse();
+    }
+
+    public void put(AIResponseCache.Key key, long contextVersion, String response) {
+        if (!enabled || response == null || response.isBlank()) {
+            return;
+        }
+        if (pendingWrites.size() >= maxPending && !pendingWrites.containsKey(key)) {
+            dropped.increment();
+            return;
+        }
+        pendingWrites.put(key, new PendingWrite(key, response, contextVersion, LocalDateTime.now()));
+    }
+
+    /**
+     * Counts a use of the answer (from either cache level); hit counts decide what is warmed.
+     */
+    public void recordHit(AIResponseCache.Key key) {
+        if (!enabled || (pendingHits.size() >= maxPending && !pendingHits.containsKey(key))) {
+            return;
+        }
+        pendingHits.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Long businessId = event.businessId();
+        pendingWrites.keySet().removeIf(key -> key.businessId().equals(businessId));
+        pendingHits.keySet().removeIf(key -> key.businessId().equals(businessId));
+        warmed.keySet().removeIf(key -> key.businessId().equals(businessId));
+        pendingInvalidations.add(businessId);
+    }
+
+    /**
+     * Applies buffered invalidations, writes and hit counts. Invalidations go first so a
+     * business's fresh answers are not deleted together with its stale ones.
+     */
+    @Scheduled(fixedDelayString = "${app.aiagent.l2.flush-interval:2000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> invalidations = new ArrayList<>();
+        for (Long businessId : List.copyOf(pendingInvalidations)) {
+            if (pendingInvalidations.remove(businessId)) {
+                invalidations.add(businessId);
+            }
+        }
+        List<PendingWrite> writes = new ArrayList<>();
+        for (PendingWrite write : List.copyOf(pendingWrites.values())) {
+            if (pendingWrites.remove(write.key(), write)) {
+                writes.add(write);
+            }
+        }
+        Map<AIResponseCache.Key, Long> hitCounts = new HashMap<>();
+        for (AIResponseCache.Key key : List.copyOf(pendingHits.keySet())) {
+            LongAdder count = pendingHits.remove(key);
+            if (count != null) {
+                hitCounts.put(key, count.sum());
+            }
+        }
+        if (invalidations.isEmpty() && writes.isEmpty() && hitCounts.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                invalidations.forEach(repository::deleteByBusinessId);
+                for (PendingWrite write : writes) {
+                    AIResponseCache.Key key = write.key();
+                    repository.upsert(key.businessId(), hash(key.normalizedPrompt()), key.normalizedPrompt(),
+                            write.response(), write.contextVersion(), write.createdAt(),
+                            write.createdAt().plusNanos(ttlMillis * 1_000_000));
+                }
+                hitCounts.forEach((key, count) ->
+                        repository.addHits(key.businessId(), hash(key.normalizedPrompt()), count));
+            });
+            log.debug("Flushed persistent AI cache: {} invalidations, {} writes, {} hit counts",
+                    invalidations.size(), writes.size(), hitCounts.size());
+        } catch (RuntimeException e) {
+            // Losing a batch only costs cache misses; invalidations must not be lost.
+            pendingInvalidations.addAll(invalidations);
+            dropped.add(writes.size());
+            log.warn("Failed to flush persistent AI cache: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.aiagent.l2.compaction-interval:600000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Integer removed = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+            log.debug("Compacted {} expired persistent AI cache entries", removed);
+        } catch (RuntimeException e) {
+            log.warn("Failed to compact persistent AI cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Preloads the most used entries of each business. They are not put into the in-memory
+     * cache directly: a row may predate a catalog change (a write-behind flushed after the
+     * invalidation, or an invalidation lost in a crash), so each is served only once
+     * {@link #get} has matched its context version against the current fingerprint.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled || warmPerBusiness <= 0) {
+            return;
+        }
+        try {
+            List<AIResponseCacheEntry> entries = repository.findHottest(LocalDateTime.now(), warmPerBusiness, warmMaxEntries);
+            for (AIResponseCacheEntry entry : entries) {
+                AIResponseCache.Key key = new AIResponseCache.Key(entry.getBusinessId(), entry.getPromptKey());
+                warmed.put(key, entry);
+            }
+            log.info("Preloaded {} persisted AI cache entries", entries.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to warm AI response cache: {}", e.getMessage());
+        }
+    }
+
+    private static String hash(String normalizedPrompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalizedPrompt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.dasith.crud_app.cache;
+
+import com.dasith.crud_app.model.Product;
+import com.dasith.crud_app.util.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory BM25 index over the products of one business (name, category and description;
+ * name terms count twice). Supports incremental add/replace/remove. Not thread-safe; the
+ * owning {@link BusinessPromptContext} synchronizes access.
+ */
+class ProductRetrievalIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private record Document(int length, Map<String, Integer> termFrequencies) {}
+
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private long totalLength;
+
+    void put(Product product) {
+        remove(product.getId());
+
+        List<String> terms = new ArrayList<>();
+        List<String> nameTerms = TextNormalizer.terms(product.getName());
+        terms.addAll(nameTerms);
+        terms.addAll(nameTerms);
+        terms.addAll(TextNormalizer.terms(product.getCategory()));
+        terms.addAll(TextNormalizer.terms(product.getDescription()));
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        documents.put(product.getId(), new Document(terms.size(), frequencies));
+        totalLength += terms.size();
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.getId(), tf));
+    }
+
+    void remove(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        totalLength -= document.length();
+        for (String term : document.termFrequencies().keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            posting.remove(productId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Ids of the best matching products for the query, best first. Empty when no query term
+     * occurs in the catalog.
+     */
+    List<Long> search(String query, int limit) {
+        Collection<String> queryTerms = new LinkedHashSet<>(TextNormalizer.terms(query));
+        if (queryTerms.isEmpty() || documents.isEmpty()) {
+            return List.of();
+        }
+
+        int documentCount = documents.size();
+        double averageLength = (double) totalLength / documentCount;
+        Map<Long, Double> scores = new HashMap<>();
+        for (String term : queryTerms) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+            posting.forEach((productId, tf) -> {
+                double norm = K1 * (1 - B + B * documents.get(productId).length() / averageLength);
+                scores.merge(productId, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+            });
+        }
+
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ids.add(0, best.poll().getKey());
+        }
+        return ids;
+    }
+}
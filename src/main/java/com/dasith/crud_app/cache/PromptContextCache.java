@@ -0,0 +1,124 @@
+package com.dasith.crud_app.cache;
+
+import com.dasith.crud_app.event.CatalogChangedEvent;
+import com.dasith.crud_app.llm.LlmSettings;
+import com.dasith.crud_app.model.Business;
+import com.dasith.crud_app.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a {@link BusinessPromptContext} per business so that AI requests do not re-read the
+ * business and its catalog. Contexts are loaded on first use, patched on single-product
+ * changes and dropped (to be reloaded lazily) on anything larger. The number of businesses
+ * held is bounded, least recently used first out.
+ */
+@Component
+@Slf4j
+public class PromptContextCache {
+
+    private final int maxProducts;
+    private final int topK;
+    private final int tokenBudget;
+    private final Map<Long, BusinessPromptContext> contexts;
+    // Loads in progress by business; a change to that business makes their result stale.
+    private final Map<Long, PendingLoads> pending = new HashMap<>();
+
+    private static final class PendingLoads {
+        int loaders;
+        long generation;
+    }
+
+    public PromptContextCache(@Value("${app.aiagent.context.max-businesses:1000}") int maxBusinesses,
+                              @Value("${app.aiagent.context.max-products:5000}") int maxProducts,
+                              @Value("${app.aiagent.retrieval.top-k:20}") int topK,
+                              @Value("${app.aiagent.retrieval.token-budget:1500}") int tokenBudget) {
+        this.maxProducts = maxProducts;
+        this.topK = topK;
+        this.tokenBudget = tokenBudget;
+        this.contexts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BusinessPromptContext> eldest) {
+                return size() > maxBusinesses;
+            }
+        };
+    }
+
+    public synchronized BusinessPromptContext getIfPresent(Long businessId) {
+        return contexts.get(businessId);
+    }
+
+    /**
+     * Returns the context for a business, building it with the loader on a miss. The loader
+     * runs outside the lock and should use {@link #create} after reading at most
+     * {@link #maxProducts()} + 1 products, so truncation is detected without reading the
+     * whole catalog.
+     */
+    public BusinessPromptContext getOrLoad(Long businessId, Supplier<BusinessPromptContext> loader) {
+        PendingLoads loads;
+        long loadGeneration;
+        synchronized (this) {
+            BusinessPromptContext context = contexts.get(businessId);
+            if (context != null) {
+                return context;
+            }
+            loads = pending.computeIfAbsent(businessId, id -> new PendingLoads());
+            loads.loaders++;
+            loadGeneration = loads.generation;
+        }
+
+        BusinessPromptContext loaded = null;
+        try {
+            loaded = loader.get();
+        } finally {
+            synchronized (this) {
+                // A load that raced with a change to this business is returned but not stored
+                if (loaded != null && loads.generation == loadGeneration) {
+                    contexts.put(businessId, loaded);
+                }
+                if (--loads.loaders == 0) {
+                    pending.remove(businessId);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public BusinessPromptContext create(Business business, List<Product> products, LlmSettings llmSettings) {
+        return new BusinessPromptContext(business, products, llmSettings, maxProducts, topK, tokenBudget);
+    }
+
+    public int maxProducts() {
+        return maxProducts;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        PendingLoads loads = pending.get(event.businessId());
+        if (loads != null) {
+            loads.generation++;
+        }
+        BusinessPromptContext context = contexts.get(event.businessId());
+        if (context == null) {
+            return;
+        }
+        switch (event.change()) {
+            case PRODUCT_SAVED -> context.productSaved(event.product());
+            case PRODUCT_DELETED -> {
+                if (!context.productDeleted(event.productId())) {
+                    contexts.remove(event.businessId());
+                }
+            }
+            default -> contexts.remove(event.businessId());
+        }
+        log.debug("Prompt context for business {} updated after {}", event.businessId(), event.change());
+    }
+}
@@ -0,0 +1,101 @@
+package com.dasith.crud_app.cache;
+
+import com.dasith.crud_app.model.User;
+import com.dasith.crud_app.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of users by email for the profile and request-authentication paths,
+ * bounded and least recently used first out. It holds immutable {@link UserSnapshot}s, never
+ * the JPA entity, and no password hash: login and token refresh read the user from the
+ * database, so a password change or reset takes effect on every instance at once.
+ *
+ * Entries live for {@code ttl} at most, which bounds how long another instance can serve a
+ * user changed elsewhere; changes made here invalidate the entry right away and again after
+ * commit, so a concurrent read of the old row cannot stay cached.
+ */
+@Component
+public class UserPrincipalCache {
+
+    /**
+     * Read-only copy of the fields the cached paths need.
+     */
+    public record UserSnapshot(Long id, String email, String firstName, String lastName, User.Role role,
+                               LocalDateTime credentialsChangedAt, LocalDateTime createdAt,
+                               boolean enabled, boolean accountNonExpired, boolean accountNonLocked) {
+
+        public static UserSnapshot of(User user) {
+            return new UserSnapshot(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                    user.getRole(), user.getCredentialsChangedAt(), user.getCreatedAt(),
+                    user.isEnabled(), user.isAccountNonExpired(), user.isAccountNonLocked());
+        }
+
+        public boolean isActive() {
+            return enabled && accountNonExpired && accountNonLocked;
+        }
+    }
+
+    private record Entry(UserSnapshot user, long expiresAt) {}
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final Map<String, Entry> users;
+
+    public UserPrincipalCache(UserRepository userRepository,
+                              @Value("${app.auth.user-cache.ttl:60000}") long ttlMillis,
+                              @Value("${app.auth.user-cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlMillis;
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached user, or loads it (outside the lock) and caches it. Unknown emails
+     * are not cached.
+     */
+    public Optional<UserSnapshot> get(String email) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = users.get(email);
+            if (entry != null && entry.expiresAt() > now) {
+                return Optional.of(entry.user());
+            }
+        }
+        Optional<UserSnapshot> user = userRepository.findByEmail(email).map(UserSnapshot::of);
+        user.ifPresent(snapshot -> {
+            synchronized (this) {
+                users.put(email, new Entry(snapshot, now + ttlMillis));
+            }
+        });
+        return user;
+    }
+
+    public void invalidate(String email) {
+        synchronized (this) {
+            users.remove(email);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (UserPrincipalCache.this) {
+                        users.remove(email);
+                    }
+                }
+            });
+        }
+    }
+}
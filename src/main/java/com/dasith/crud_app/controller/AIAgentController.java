@@ -2,7 +2,10 @@ package com.dasith.crud_app.controller;
 
 import com.dasith.crud_app.service.AIAgentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -23,4 +26,12 @@ public class AIAgentController {
     public Mono<String> generateContent(@RequestBody UserRequest userRequest,@PathVariable Long businessId) {
         return geminiService.getGeminiResponse(userRequest.prompt(),businessId);
     }
+
+    // Streams the answer as server-sent events so the first words arrive without waiting for the whole reply
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamContent(@RequestBody UserRequest userRequest, @PathVariable Long businessId) {
+        return geminiService.streamGeminiResponse(userRequest.prompt(), businessId)
+                .map(chunk -> ServerSentEvent.builder(chunk).event("chunk").build())
+                .concatWith(Flux.just(ServerSentEvent.builder("").event("done").build()));
+    }
 }
@@ -1,6 +1,8 @@
 package com.dasith.crud_app.controller;
 
+import com.dasith.crud_app.cache.UserPrincipalCache;
 import com.dasith.crud_app.dto.*;
+import com.dasith.crud_app.exception.ServiceUnavailableException;
 import com.dasith.crud_app.model.User;
 import com.dasith.crud_app.service.AuthService;
 import com.dasith.crud_app.util.JwtUtil;
@@ -12,7 +14,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -37,6 +38,8 @@ public class AuthController {
 
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(new ApiResponse(true, "User registered successfully"));
+        } catch (ServiceUnavailableException e) {
+            throw e; // password hashing is saturated: 503, not a validation error
         } catch (Exception e) {
             log.error("Registration failed: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -47,15 +50,13 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletResponse response) {
         try {
-            String token = authService.authenticateUser(request.getEmail(), request.getPassword());
-            User user = authService.getUserByEmail(request.getEmail());
-            
-            // Generate refresh token
-            UserDetails userDetails = authService.loadUserByUsername(request.getEmail());
-            String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+            // One user lookup: the authenticated user comes back together with both tokens
+            AuthService.TokenPair tokens = authService.login(request.getEmail(), request.getPassword());
+            User user = tokens.user();
+            String refreshToken = tokens.refreshToken();
 
             AuthResponse authResponse = new AuthResponse(
-                    token,
+                    tokens.accessToken(),
                     refreshToken,
                     user.getId(),
                     user.getEmail(),
@@ -77,6 +78,8 @@ public class AuthController {
             response.addCookie(jwtCookie);
 
             return ResponseEntity.ok(authResponse);
+        } catch (ServiceUnavailableException e) {
+            throw e; // password hashing is saturated: 503, not bad credentials
         } catch (Exception e) {
             log.error("Login failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -123,12 +126,23 @@ public class AuthController {
     }
 
     @PostMapping("/refresh-token")
-    public ResponseEntity<?> refreshToken(@RequestBody RefreshTokenRequest request) {
+    public ResponseEntity<?> refreshToken(@RequestBody RefreshTokenRequest request, HttpServletResponse response) {
 
 
         try {
-            String newToken = authService.refreshToken(request.getRefreshToken());
-            return ResponseEntity.ok(new ApiResponse(true, "Token refreshed successfully", newToken));
+            // The refresh token is rotated: the old one is revoked and a new pair is returned.
+            AuthService.TokenPair tokens = authService.refreshToken(request.getRefreshToken());
+            User user = tokens.user();
+            AuthResponse authResponse = new AuthResponse(
+                    tokens.accessToken(),
+                    tokens.refreshToken(),
+                    user.getId(),
+                    user.getEmail(),
+                    user.getFirstName(),
+                    user.getLastName()
+            );
+            response.addCookie(refreshTokenCookie(tokens.refreshToken(), 24 * 60 * 60 * 7));
+            return ResponseEntity.ok(new ApiResponse(true, "Token refreshed successfully", authResponse));
         } catch (Exception e) {
             log.error("Token refresh failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -136,20 +150,40 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                              @RequestBody(required = false) RefreshTokenRequest request,
+                                              HttpServletResponse response) {
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        String refreshToken = request != null ? request.getRefreshToken() : null;
+        authService.logout(accessToken, refreshToken);
+        response.addCookie(refreshTokenCookie("", 0));
+        return ResponseEntity.ok(new ApiResponse(true, "Logged out successfully"));
+    }
+
+    private static Cookie refreshTokenCookie(String refreshToken, int maxAgeSeconds) {
+        Cookie jwtCookie = new Cookie("access_token", refreshToken);
+        jwtCookie.setHttpOnly(true);
+        jwtCookie.setSecure(true);
+        jwtCookie.setPath("/");
+        jwtCookie.setMaxAge(maxAgeSeconds);
+        return jwtCookie;
+    }
+
     @GetMapping("/profile")
     public ResponseEntity<?> getProfile(Authentication authentication) {
         try {
             String email = authentication.getName();
-            User user = authService.getUserByEmail(email);
+            UserPrincipalCache.UserSnapshot user = authService.getUserByEmail(email);
             
             // Create a safe user response without password
             UserProfileResponse userProfile = new UserProfileResponse(
-                    user.getId(),
-                    user.getEmail(),
-                    user.getFirstName(),
-                    user.getLastName(),
-                    user.getRole().name(),
-                    user.getCreatedAt()
+                    user.id(),
+                    user.email(),
+                    user.firstName(),
+                    user.lastName(),
+                    user.role().name(),
+                    user.createdAt()
             );
             
             return ResponseEntity.ok(new ApiResponse(true, "Profile retrieved successfully", userProfile));
@@ -1,10 +1,9 @@
 package com.dasith.crud_app.controller;
 
+import com.dasith.crud_app.dto.BusinessView;
+import com.dasith.crud_app.dto.CursorPage;
 import com.dasith.crud_app.model.Business;
-
-import com.dasith.crud_app.model.Product;
 import com.dasith.crud_app.service.BusinessService;
-import com.dasith.crud_app.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,18 +17,24 @@ public class BusinessController {
     @Autowired
     private BusinessService businessService;
 
-    @Autowired
-    private ProductService productService;
-
     @GetMapping
-    public ResponseEntity<List<Business>> getBusiness(@PathVariable Long userId){
-        List<Business> businesses=businessService.getBusinessByUserId(userId);
-        return ResponseEntity.ok(businesses);
+    public ResponseEntity<List<BusinessView>> getBusiness(@PathVariable Long userId){
+        List<BusinessView> businesses=businessService.getBusinessByUserId(userId);
+        return ResponseEntity.ok()
+                .header("X-Result-Truncated", String.valueOf(businesses.size() >= businessService.getUnpagedLimit()))
+                .body(businesses);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<BusinessView>> getBusinessPage(@PathVariable Long userId,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer size){
+        return ResponseEntity.ok(businessService.getBusinessPage(userId, cursor, size));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Business> getBusinessById(@PathVariable Long id){
-        return  businessService.getBusinessById(id)
+    public ResponseEntity<BusinessView> getBusinessById(@PathVariable Long id){
+        return  businessService.getBusinessViewById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -51,8 +56,8 @@ public class BusinessController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBusinessDetails(@PathVariable Long id){
+        // Removes the products, agent and cached answers as well
         businessService.deteleBusiness(id);
-        productService.deleteProductByBusinessId(id);
         return ResponseEntity.noContent().build();
     }
 }
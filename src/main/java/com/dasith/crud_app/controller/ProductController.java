@@ -1,13 +1,24 @@
 package com.dasith.crud_app.controller;
 
+import com.dasith.crud_app.dto.CursorPage;
+import com.dasith.crud_app.dto.ImportResult;
+import com.dasith.crud_app.dto.ProductSearchResult;
 import com.dasith.crud_app.model.Product;
 import com.dasith.crud_app.service.BusinessService;
+import com.dasith.crud_app.service.ProductExportService;
+import com.dasith.crud_app.service.ProductImportService;
+import com.dasith.crud_app.service.ProductSearchService;
 import com.dasith.crud_app.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -18,11 +29,30 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
     @GetMapping
     public ResponseEntity<List<Product>> getProductsForBusiness(@PathVariable Long businessId) {
-        // Note: Assuming your service returns a List<Product>
+        // Capped listing; a full result means there may be more, available through /page
         List<Product> products = productService.getProductsByBusinessId(businessId);
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok()
+                .header("X-Result-Truncated", String.valueOf(products.size() >= productService.getUnpagedLimit()))
+                .body(products);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Product>> getProductsPage(@PathVariable Long businessId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size,
+                                                               @RequestParam(defaultValue = "id") String sort) {
+        return ResponseEntity.ok(productService.getProductsPage(businessId, cursor, size, sort));
     }
 
     @PostMapping
@@ -31,6 +61,51 @@ public class ProductController {
         return ResponseEntity.ok(createProduct);
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResult> searchProducts(@PathVariable Long businessId,
+                                                              @RequestParam(required = false) String q,
+                                                              @RequestParam(required = false) String category,
+                                                              @RequestParam(required = false) Double minPrice,
+                                                              @RequestParam(required = false) Double maxPrice,
+                                                              @RequestParam(defaultValue = "false") boolean inStock,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productSearchService.search(
+                businessId, q, category, minPrice, maxPrice, inStock, cursor, size));
+    }
+
+    // Streams the body (CSV with a header row, or NDJSON) straight into batched inserts
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportResult> importProducts(@PathVariable Long businessId,
+                                                       @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                       InputStream body) {
+        ProductImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.NDJSON;
+        return ResponseEntity.ok(productImportService.importProducts(businessId, body, format));
+    }
+
+    // Streams the whole catalog from a database cursor; heap use does not grow with its size
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@PathVariable Long businessId,
+                                                                @RequestParam(defaultValue = "ndjson") String format,
+                                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        ProductExportService.Format exportFormat = ProductExportService.Format.parse(format);
+        productExportService.checkBusinessExists(businessId);
+
+        String extension = exportFormat == ProductExportService.Format.CSV ? "csv" : "ndjson";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == ProductExportService.Format.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products-" + businessId + "." + extension + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> productExportService.export(businessId, exportFormat, gzip, out));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody Product product) {
         try {
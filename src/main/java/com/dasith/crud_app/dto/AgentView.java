@@ -0,0 +1,23 @@
+package com.dasith.crud_app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read-only AI agent settings as returned inside business listings.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgentView {
+    private Long id;
+    @JsonIgnore
+    private Long businessId;
+    private String agentName;
+    private String agentPersonality;
+    private String modelName;
+    private Long timeoutMs;
+    private Integer maxRetries;
+}
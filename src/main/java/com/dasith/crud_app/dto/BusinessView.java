@@ -0,0 +1,37 @@
+package com.dasith.crud_app.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only business with its products and agent, in the same JSON shape as the entity.
+ * Built from projection queries instead of the entity graph, so listing businesses costs
+ * a fixed number of queries however many there are.
+ *
+ * {@code products} holds only the first products of the business; {@code moreProducts} tells
+ * the client to read the rest from the product pages.
+ */
+@Data
+@NoArgsConstructor
+public class BusinessView {
+    private Long id;
+    private String name;
+    private String type;
+    private String industry;
+    private String description;
+    private List<ProductView> products = new ArrayList<>();
+    private boolean moreProducts;
+    private AgentView agent;
+
+    // Used by the JPQL constructor expression; products and agent are filled in afterwards.
+    public BusinessView(Long id, String name, String type, String industry, String description) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.industry = industry;
+        this.description = description;
+    }
+}
@@ -0,0 +1,28 @@
+package com.dasith.crud_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code errors} lists the first rejected rows only; {@code failed}
+ * counts all of them. {@code complete} is false when the import stopped before the end of the
+ * input; the rows counted in {@code imported} are committed either way.
+ */
+@Data
+@AllArgsConstructor
+public class ImportResult {
+    private long imported;
+    private long failed;
+    private List<RowError> errors;
+    private long durationMs;
+    private boolean complete;
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String message;
+    }
+}
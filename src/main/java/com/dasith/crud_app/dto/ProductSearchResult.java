@@ -0,0 +1,20 @@
+package com.dasith.crud_app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of product search results. {@code categoryCounts} counts all matches per
+ * category (ignoring the category filter itself) and is only computed for the first page;
+ * products without a category are counted under "".
+ */
+@Data
+@AllArgsConstructor
+public class ProductSearchResult {
+    private List<ProductView> items;
+    private String nextCursor;
+    private Map<String, Long> categoryCounts;
+}
@@ -0,0 +1,23 @@
+package com.dasith.crud_app.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read-only product as returned inside business listings.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductView {
+    private Long id;
+    @JsonIgnore
+    private Long businessId;
+    private String name;
+    private String description;
+    private Double price;
+    private String category;
+    private Integer stock;
+}
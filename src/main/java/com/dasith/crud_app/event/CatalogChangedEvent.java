@@ -0,0 +1,42 @@
+package com.dasith.crud_app.event;
+
+import com.dasith.crud_app.model.Product;
+
+/**
+ * Published whenever a business or one of its products changes, so that anything derived
+ * from the catalog (cached AI answers, prompt data) can be dropped or rebuilt.
+ *
+ * For single-product changes the event carries the product id, and for saves the saved
+ * product itself, so listeners can update incrementally instead of reloading the catalog.
+ */
+public record CatalogChangedEvent(Long businessId, Change change, Long productId, Product product) {
+
+    public enum Change {
+        BUSINESS_UPDATED,
+        BUSINESS_DELETED,
+        PRODUCT_SAVED,
+        PRODUCT_DELETED,
+        // Many products changed at once (bulk delete or import); derived data must be reloaded.
+        PRODUCTS_REPLACED
+    }
+
+    public static CatalogChangedEvent businessUpdated(Long businessId) {
+        return new CatalogChangedEvent(businessId, Change.BUSINESS_UPDATED, null, null);
+    }
+
+    public static CatalogChangedEvent businessDeleted(Long businessId) {
+        return new CatalogChangedEvent(businessId, Change.BUSINESS_DELETED, null, null);
+    }
+
+    public static CatalogChangedEvent productSaved(Long businessId, Product product) {
+        return new CatalogChangedEvent(businessId, Change.PRODUCT_SAVED, product.getId(), product);
+    }
+
+    public static CatalogChangedEvent productDeleted(Long businessId, Long productId) {
+        return new CatalogChangedEvent(businessId, Change.PRODUCT_DELETED, productId, null);
+    }
+
+    public static CatalogChangedEvent productsReplaced(Long businessId) {
+        return new CatalogChangedEvent(businessId, Change.PRODUCTS_REPLACED, null, null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.dasith.crud_app.exception;
+
+/**
+ * Thrown when a bounded resource (worker pool, queue) is saturated and the request should be
+ * retried later. Mapped to 503 by {@link GlobalExceptionHandler}.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
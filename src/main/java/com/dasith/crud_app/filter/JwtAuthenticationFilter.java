@@ -1,28 +1,115 @@
 package com.dasith.crud_app.filter;
 
+import com.dasith.crud_app.cache.UserPrincipalCache;
+import com.dasith.crud_app.service.TokenRevocationService;
+import com.dasith.crud_app.util.JwtPrincipal;
 import com.dasith.crud_app.util.JwtUtil;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Authenticates requests that carry a bearer token.
+ *
+ * Routes that never need a principal (login, registration, password reset, the AI agent and
+ * public endpoints) are skipped entirely, using path patterns parsed once at startup. Auth
+ * routes that do read the principal, such as profile, change-password, validate-token and
+ * logout, are still filtered.
+ *
+ * Only access tokens authenticate a request; refresh tokens are rejected as {@code wrong_type}.
+ * Access tokens issued before the user's last password change or reset are rejected as
+ * {@code credentials_changed}. That check reads {@link UserPrincipalCache}: the instance that
+ * made the change sees it at once, other instances within the cache TTL (60 s by default),
+ * which is well inside the access token lifetime the check is there to cut short.
+ *
+ * Rejected tokens are counted by reason and logged at most once per {@code log-interval},
+ * together with the number of rejections suppressed since the last line, so a flood of bad
+ * tokens cannot flood the log.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final List<PathPattern> PUBLIC_ROUTES = parse(
+            "/api/auth/register",
+            "/api/auth/login",
+            "/api/auth/forgot-password",
+            "/api/auth/reset-password",
+            "/api/auth/refresh-token",
+            "/api/aiagent/**",
+            "/api/public/**",
+            "/h2-console/**");
+
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserPrincipalCache userCache;
+    private final MeterRegistry meterRegistry;
+    private final long logIntervalNanos;
+    private final Timer verifyTimer;
+    private final Counter authenticated;
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+    private final AtomicLong nextLogAt = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   TokenRevocationService tokenRevocationService,
+                                   UserPrincipalCache userCache,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${jwt.rejections.log-interval:10000}") long logIntervalMillis) {
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userCache = userCache;
+        this.meterRegistry = meterRegistry;
+        this.logIntervalNanos = logIntervalMillis * 1_000_000;
+        this.nextLogAt.set(System.nanoTime());
+
+        this.verifyTimer = Timer.builder("auth.jwt.verify")
+                .description("Token verification and revocation check per request")
+                .register(meterRegistry);
+        this.authenticated = Counter.builder("auth.jwt.requests").tag("result", "authenticated").register(meterRegistry);
+        FunctionCounter.builder("auth.jwt.verified.cache", jwtUtil, JwtUtil::verifiedCacheHits)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("auth.jwt.verified.cache", jwtUtil, JwtUtil::verifiedCacheMisses)
+                .tag("result", "miss").register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (PathPattern route : PUBLIC_ROUTES) {
+            if (route.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -31,39 +118,86 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String email = null;
-        String jwt = null;
-
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authorizationHeader.substring(7);
+            long start = System.nanoTime();
+            JwtPrincipal principal = null;
             try {
-                email = jwtUtil.extractUsername(jwt);
+                // One parse and signature check per request (or none for a recently verified token)
+                principal = jwtUtil.parseAndVerify(jwt);
+                String reason = rejectionReason(principal);
+                if (reason != null) {
+                    reject(reason, null);
+                    principal = null;
+                }
+            } catch (ExpiredJwtException e) {
+                reject("expired", e);
+            } catch (SignatureException e) {
+                reject("bad_signature", e);
+            } catch (MalformedJwtException | IllegalArgumentException e) {
+                reject("malformed", e);
             } catch (Exception e) {
-                log.error("Error extracting username from JWT: {}", e.getMessage());
+                reject("invalid", e);
+            } finally {
+                verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             }
-        }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                if (jwtUtil.validateToken(jwt)) {
-                    // Extract role from JWT
-                    String role = jwtUtil.extractRole(jwt);
-                    List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
-                    
-                    UsernamePasswordAuthenticationToken authToken = 
-                            new UsernamePasswordAuthenticationToken(
-                                    email, 
-                                    null, 
-                                    authorities
-                            );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
-            } catch (Exception e) {
-                log.error("Error setting user authentication: {}", e.getMessage());
+            if (principal != null) {
+                List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + principal.role()));
+
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(
+                                principal.email(),
+                                null,
+                                authorities
+                        );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                authenticated.increment();
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Checks a verified token against its type, the revocation list and the user's current
+     * state; returns the rejection reason, or null when the token may authenticate.
+     */
+    private String rejectionReason(JwtPrincipal principal) {
+        if (principal.isRefreshToken()) {
+            return "wrong_type";
+        }
+        if (principal.tokenId() != null && tokenRevocationService.isRevoked(principal.tokenId())) {
+            return "revoked";
+        }
+        UserPrincipalCache.UserSnapshot user = userCache.get(principal.email()).orElse(null);
+        if (user == null || !user.isActive()) {
+            return "unknown_user";
+        }
+        if (principal.issuedBefore(user.credentialsChangedAt())) {
+            return "credentials_changed";
+        }
+        return null;
+    }
+
+    private void reject(String reason, Exception cause) {
+        rejected.computeIfAbsent(reason, r -> Counter.builder("auth.jwt.requests")
+                .tag("result", "rejected").tag("reason", r).register(meterRegistry)).increment();
+
+        long now = System.nanoTime();
+        long next = nextLogAt.get();
+        if (now - next < 0 || !nextLogAt.compareAndSet(next, now + logIntervalNanos)) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        log.warn("Rejected JWT ({}): {}; {} similar rejections suppressed",
+                reason, cause != null ? cause.getMessage() : "token verified but not accepted", suppressed.getAndSet(0));
+    }
+
+    private static List<PathPattern> parse(String... patterns) {
+        PathPatternParser parser = new PathPatternParser();
+        return Arrays.stream(patterns).map(parser::parse).toList();
+    }
 }
@@ -0,0 +1,158 @@
+package com.dasith.crud_app.filter;
+
+import com.dasith.crud_app.dto.ApiResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Throttles the public endpoints: {@code /api/auth/**} per client IP and, for requests that
+ * carry an email in their JSON body (login, register, password reset), per email as well.
+ * Those bodies are read up to {@code max-inspected-body} bytes whatever Content-Length says,
+ * so chunked requests are limited too; a larger body is rejected with 413, and a body without
+ * a readable email counts against one shared key rather than escaping the per-email limit.
+ *
+ * {@code /api/aiagent/{businessId}/**} is limited per client IP and per business. AI requests
+ * cost one token plus one per {@code bytes-per-token} of body, so long prompts use up the
+ * budget faster. A body sent without Content-Length is read up to {@code max-inspected-body}
+ * bytes and charged for what was read; a longer one is rejected with 413. Rejected requests
+ * get 429 with a Retry-After header.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String AUTH_PREFIX = "/api/auth/";
+    private static final String AI_PREFIX = "/api/aiagent/";
+    private static final Set<String> EMAIL_ROUTES = Set.of(
+            "/api/auth/login", "/api/auth/register", "/api/auth/forgot-password");
+    // Per-email key shared by all bodies whose email cannot be read
+    private static final String UNKNOWN_EMAIL = "?";
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final RateLimiter.Rule authIp;
+    private final RateLimiter.Rule authEmail;
+    private final RateLimiter.Rule aiIp;
+    private final RateLimiter.Rule aiBusiness;
+    private final long aiBytesPerToken;
+    private final int maxInspectedBody;
+
+    public RateLimitFilter(RateLimiter rateLimiter, ObjectMapper objectMapper,
+                           @Value("${app.ratelimit.auth.ip.capacity:20}") long authIpCapacity,
+                           @Value("${app.ratelimit.auth.ip.per-minute:20}") double authIpPerMinute,
+                           @Value("${app.ratelimit.auth.email.capacity:5}") long authEmailCapacity,
+                           @Value("${app.ratelimit.auth.email.per-minute:5}") double authEmailPerMinute,
+                           @Value("${app.ratelimit.ai.ip.capacity:30}") long aiIpCapacity,
+                           @Value("${app.ratelimit.ai.ip.per-minute:30}") double aiIpPerMinute,
+                           @Value("${app.ratelimit.ai.business.capacity:120}") long aiBusinessCapacity,
+                           @Value("${app.ratelimit.ai.business.per-minute:120}") double aiBusinessPerMinute,
+                           @Value("${app.ratelimit.ai.bytes-per-token:1024}") long aiBytesPerToken,
+                           @Value("${app.ratelimit.max-inspected-body:8192}") int maxInspectedBody) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.authIp = new RateLimiter.Rule("auth-ip", authIpCapacity, authIpPerMinute);
+        this.authEmail = new RateLimiter.Rule("auth-email", authEmailCapacity, authEmailPerMinute);
+        this.aiIp = new RateLimiter.Rule("ai-ip", aiIpCapacity, aiIpPerMinute);
+        this.aiBusiness = new RateLimiter.Rule("ai-business", aiBusinessCapacity, aiBusinessPerMinute);
+        this.aiBytesPerToken = aiBytesPerToken;
+        this.maxInspectedBody = maxInspectedBody;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return "OPTIONS".equals(request.getMethod())
+                || !(path.startsWith(AUTH_PREFIX) || path.startsWith(AI_PREFIX));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        String ip = request.getRemoteAddr();
+        long waitMillis;
+
+        if (path.startsWith(AUTH_PREFIX)) {
+            waitMillis = rateLimiter.tryAcquire(authIp, ip, 1);
+            if (waitMillis == 0 && EMAIL_ROUTES.contains(path) && "POST".equals(request.getMethod())) {
+                byte[] body = request.getInputStream().readNBytes(maxInspectedBody + 1);
+                if (body.length > maxInspectedBody) {
+                    write(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large");
+                    return;
+                }
+                CachedBodyRequest cached = new CachedBodyRequest(request, body);
+                request = cached;
+                String email = extractEmail(cached);
+                waitMillis = rateLimiter.tryAcquire(authEmail, email != null ? email : UNKNOWN_EMAIL, 1);
+            }
+        } else {
+            long length = request.getContentLengthLong();
+            if (length < 0) {
+                // No Content-Length (chunked): measure the body instead of trusting a default
+                byte[] body = request.getInputStream().readNBytes(maxInspectedBody + 1);
+                if (body.length > maxInspectedBody) {
+                    write(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large");
+                    return;
+                }
+                request = new CachedBodyRequest(request, body);
+                length = body.length;
+            }
+            long cost = 1 + length / aiBytesPerToken;
+            waitMillis = rateLimiter.tryAcquire(aiIp, ip, cost);
+            String businessId = businessId(path);
+            if (waitMillis == 0 && businessId != null) {
+                waitMillis = rateLimiter.tryAcquire(aiBusiness, businessId, cost);
+            }
+        }
+
+        if (waitMillis > 0) {
+            reject(response, waitMillis);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String extractEmail(CachedBodyRequest request) {
+        try {
+            JsonNode email = objectMapper.readTree(request.getInputStream()).path("email");
+            String value = email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : "";
+            return value.isEmpty() ? null : value;
+        } catch (IOException e) {
+            return null; // not JSON; validation will reject it
+        }
+    }
+
+    private static String businessId(String path) {
+        int start = AI_PREFIX.length();
+        int end = path.indexOf('/', start);
+        String id = end < 0 ? path.substring(start) : path.substring(start, end);
+        return id.isEmpty() ? null : id;
+    }
+
+    private void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+        write(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please try again later");
+    }
+
+    private void write(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse(false, message));
+    }
+}
@@ -0,0 +1,77 @@
+package com.dasith.crud_app.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets per rule and key (an IP, an email, a business id). Taking a token is one
+ * lookup in a ConcurrentHashMap and one CAS, with no lock on the request path.
+ *
+ * Memory is bounded: at most {@code max-keys} buckets are tracked. While the table is full,
+ * new keys share one overflow bucket per rule, which errs on the side of limiting. Buckets
+ * that have not been used for {@code idle-timeout} are evicted periodically; by then they
+ * are full again, so dropping them loses nothing.
+ */
+@Component
+@Slf4j
+public class RateLimiter {
+
+    /**
+     * A limit: bursts of up to {@code capacity} requests, refilled at {@code perMinute}.
+     */
+    public record Rule(String name, long capacity, double perMinute) {}
+
+    private final long startMillis = System.currentTimeMillis();
+    private final int maxKeys;
+    private final long idleTimeoutMillis;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> overflow = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RateLimiter(@Value("${app.ratelimit.max-keys:100000}") int maxKeys,
+                       @Value("${app.ratelimit.idle-timeout:600000}") long idleTimeoutMillis,
+                       MeterRegistry meterRegistry) {
+        this.maxKeys = maxKeys;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("ratelimit.keys", buckets, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Takes {@code cost} tokens from the key's bucket. Returns 0 when allowed, otherwise the
+     * number of milliseconds the client should wait.
+     */
+    public long tryAcquire(Rule rule, String key, long cost) {
+        long now = System.currentTimeMillis() - startMillis;
+        String bucketKey = rule.name() + ':' + key;
+        TokenBucket bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            bucket = buckets.size() < maxKeys
+                    ? buckets.computeIfAbsent(bucketKey, k -> new TokenBucket(rule.capacity(), rule.perMinute(), now))
+                    : overflow.computeIfAbsent(rule.name(), k -> new TokenBucket(rule.capacity(), rule.perMinute(), now));
+        }
+        long waitMillis = bucket.tryConsume(cost, now);
+        if (waitMillis > 0) {
+            rejections.computeIfAbsent(rule.name(),
+                    name -> Counter.builder("ratelimit.rejected").tag("rule", name).register(meterRegistry)).increment();
+        }
+        return waitMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ratelimit.eviction-interval:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - startMillis - idleTimeoutMillis;
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.lastRefill() < cutoff);
+        log.debug("Evicted {} idle rate limit buckets", before - buckets.size());
+    }
+}
@@ -0,0 +1,63 @@
+package com.dasith.crud_app.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. The whole state lives in one AtomicLong: the time of the last
+ * refill (milliseconds since the limiter started, upper 40 bits) and the available tokens in
+ * thousandths (lower 24 bits), so a take is a single compare-and-set.
+ */
+final class TokenBucket {
+
+    static final long MILLI_TOKENS = 1000;
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    private final AtomicLong state;
+    private final long capacity;
+    private final double refillPerMilli;
+
+    TokenBucket(long capacityTokens, double tokensPerMinute, long now) {
+        if (capacityTokens * MILLI_TOKENS > TOKEN_MASK) {
+            throw new IllegalArgumentException("Bucket capacity is limited to " + TOKEN_MASK / MILLI_TOKENS + " tokens");
+        }
+        this.capacity = capacityTokens * MILLI_TOKENS;
+        this.refillPerMilli = tokensPerMinute * MILLI_TOKENS / 60_000.0;
+        this.state = new AtomicLong(now << TOKEN_BITS | capacity);
+    }
+
+    /**
+     * Takes {@code cost} tokens (capped at the capacity). Returns 0 on success, otherwise the
+     * number of milliseconds until enough tokens will be available.
+     */
+    long tryConsume(long cost, long now) {
+        long needed = Math.min(cost * MILLI_TOKENS, capacity);
+        while (true) {
+            long current = state.get();
+            long last = current >>> TOKEN_BITS;
+            long tokens = current & TOKEN_MASK;
+
+            long elapsed = Math.max(0, now - last);
+            long refill = (long) (elapsed * refillPerMilli);
+            if (tokens + refill >= capacity) {
+                tokens = capacity;
+                last = now;
+            } else if (refill > 0) {
+                tokens += refill;
+                // Only advance by the time actually turned into tokens, so slow rates still refill.
+                last += (long) (refill / refillPerMilli);
+            }
+
+            if (tokens < needed) {
+                return Math.max(1, (long) Math.ceil((needed - tokens) / refillPerMilli));
+            }
+            if (state.compareAndSet(current, last << TOKEN_BITS | (tokens - needed))) {
+                return 0;
+            }
+        }
+    }
+
+    long lastRefill() {
+        return state.get() >>> TOKEN_BITS;
+    }
+}
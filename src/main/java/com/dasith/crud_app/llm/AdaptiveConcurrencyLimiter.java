@@ -0,0 +1,75 @@
+package com.dasith.crud_app.llm;
+
+/**
+ * AIMD concurrency limit driven by latency, in the spirit of TCP Vegas: the lowest observed
+ * round trip is taken as the no-queueing baseline. A call that takes more than
+ * {@code tolerance} times the baseline, or fails, shrinks the limit multiplicatively. A fast
+ * call made while the limit was actually in use grows it by one. The baseline is re-sampled
+ * periodically so it can follow a slower upstream.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    private static final int BASELINE_RESET_SAMPLES = 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+    private long baselineNanos = Long.MAX_VALUE;
+    private int samples;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    synchronized boolean hasHeadroom() {
+        return inFlight < (int) limit;
+    }
+
+    synchronized void onSuccess(long rttNanos) {
+        int inFlightAtCompletion = inFlight--;
+        if (++samples >= BASELINE_RESET_SAMPLES) {
+            samples = 0;
+            baselineNanos = rttNanos;
+        }
+        baselineNanos = Math.min(baselineNanos, rttNanos);
+
+        if (rttNanos > baselineNanos * tolerance) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlightAtCompletion * 2 >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    synchronized void onFailure() {
+        inFlight--;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,11 @@
+package com.dasith.crud_app.llm;
+
+/**
+ * Raised without calling the LLM while the circuit breaker is open.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.dasith.crud_app.llm;
+
+import com.google.genai.Client;
+import com.google.genai.ResponseStream;
+import com.google.genai.types.GenerateContentResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@Component
+@ConditionalOnProperty(name = "app.llm.backend", havingValue = "gemini", matchIfMissing = true)
+@Slf4j
+public class GeminiLlmClient implements LlmClient {
+
+    private final Client geminiClient;
+
+    public GeminiLlmClient(@Value("${gemini.api.key}") String apiKey) {
+        this.geminiClient = Client.builder().apiKey(apiKey).build();
+    }
+
+    @Override
+    public String generate(String model, String prompt) {
+        GenerateContentResponse response = geminiClient.models.generateContent(model, prompt, null);
+        String text = response.text();
+        if (text == null || text.isBlank()) {
+            throw new IllegalStateException("Gemini returned an empty response");
+        }
+        return text;
+    }
+
+    @Override
+    public Stream<String> generateStream(String model, String prompt) {
+        ResponseStream<GenerateContentResponse> responseStream =
+                geminiClient.models.generateContentStream(model, prompt, null);
+
+        return StreamSupport.stream(responseStream.spliterator(), false)
+                .map(GenerateContentResponse::text)
+                .filter(Objects::nonNull)
+                .onClose(() -> {
+                    try {
+                        responseStream.close();
+                    } catch (Exception e) {
+                        log.debug("Failed to close Gemini response stream: {}", e.getMessage());
+                    }
+                });
+    }
+}
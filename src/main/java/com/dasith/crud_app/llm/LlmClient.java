@@ -0,0 +1,18 @@
+package com.dasith.crud_app.llm;
+
+import java.util.stream.Stream;
+
+/**
+ * Text generation backend used by the AI agent. Both calls block; callers are expected to run
+ * them on the AI executor. Implementations throw on failure and never return null text.
+ */
+public interface LlmClient {
+
+    String generate(String model, String prompt);
+
+    /**
+     * Streams the answer in chunks. The returned stream must be closed to release the
+     * underlying connection.
+     */
+    Stream<String> generateStream(String model, String prompt);
+}
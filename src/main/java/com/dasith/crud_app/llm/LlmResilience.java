@@ -0,0 +1,190 @@
+package com.dasith.crud_app.llm;
+
+import com.dasith.crud_app.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Guards every LLM call with a circuit breaker and an adaptive concurrency limit.
+ *
+ * While the breaker is open, calls fail immediately with {@link CircuitOpenException} instead
+ * of waiting for a timeout, so callers fall back at once. The concurrency limit grows while
+ * latency stays near its baseline and shrinks when latency rises or calls fail; calls over the
+ * limit are rejected with a 503 rather than piling up on a struggling upstream.
+ *
+ * Failed attempts are retried with exponential backoff and jitter, so that callers that
+ * failed together do not retry together. Optionally a hedge attempt is started when the first
+ * one has not answered after {@code hedge-delay}; the first answer wins and the other attempt
+ * is cancelled. Hedges are only sent while the limiter has headroom.
+ */
+@Component
+@Slf4j
+public class LlmResilience {
+
+    private static final String LIMIT_MESSAGE = "AI agent is busy, please try again shortly";
+
+    private final CircuitBreaker breaker;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final double jitter;
+    private final Duration hedgeDelay;
+    private final MeterRegistry meterRegistry;
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter shortCircuited;
+    private final Counter limited;
+    private final Counter retries;
+    private final Counter hedges;
+
+    public LlmResilience(@Value("${app.llm.resilience.breaker.window-size:50}") int windowSize,
+                         @Value("${app.llm.resilience.breaker.minimum-calls:20}") int minimumCalls,
+                         @Value("${app.llm.resilience.breaker.failure-rate:0.5}") double failureRate,
+                         @Value("${app.llm.resilience.breaker.open-duration:30000}") long openMillis,
+                         @Value("${app.llm.resilience.breaker.half-open-calls:3}") int halfOpenCalls,
+                         @Value("${app.llm.resilience.limit.initial:16}") int initialLimit,
+                         @Value("${app.llm.resilience.limit.min:2}") int minLimit,
+                         @Value("${app.llm.resilience.limit.max:64}") int maxLimit,
+                         @Value("${app.llm.resilience.limit.latency-tolerance:2.0}") double latencyTolerance,
+                         @Value("${app.llm.resilience.limit.backoff-ratio:0.9}") double backoffRatio,
+                         @Value("${app.llm.resilience.retry.backoff:200}") long backoffMillis,
+                         @Value("${app.llm.resilience.retry.max-backoff:2000}") long maxBackoffMillis,
+                         @Value("${app.llm.resilience.retry.jitter:0.5}") double jitter,
+                         @Value("${app.llm.resilience.hedge-delay:0}") long hedgeDelayMillis,
+                         MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.breaker = new CircuitBreaker(windowSize, minimumCalls, failureRate, openMillis, halfOpenCalls,
+                this::onTransition);
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyTolerance, backoffRatio);
+        this.backoff = Duration.ofMillis(backoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+        this.jitter = jitter;
+        this.hedgeDelay = hedgeDelayMillis > 0 ? Duration.ofMillis(hedgeDelayMillis) : null;
+
+        Gauge.builder("llm.breaker.state", breaker, b -> b.state().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+        Gauge.builder("llm.limiter.limit", limiter, AdaptiveConcurrencyLimiter::limit).register(meterRegistry);
+        Gauge.builder("llm.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::inFlight).register(meterRegistry);
+        this.successes = callCounter("success");
+        this.failures = callCounter("failure");
+        this.shortCircuited = callCounter("short_circuited");
+        this.limited = callCounter("limited");
+        this.retries = Counter.builder("llm.retries").register(meterRegistry);
+        this.hedges = Counter.builder("llm.hedges").register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code call} with timeout, breaker, limiter, retries and (when enabled) hedging.
+     * {@code call} must produce a fresh upstream call each time it is invoked.
+     */
+    public <T> Mono<T> execute(LlmSettings settings, Supplier<Mono<T>> call) {
+        Mono<T> attempt = Mono.defer(() -> guard(call.get().timeout(settings.timeout()).flux()).singleOrEmpty());
+        return hedged(attempt)
+                .retryWhen(Retry.backoff(settings.maxRetries(), backoff)
+                        .maxBackoff(maxBackoff)
+                        .jitter(jitter)
+                        .filter(LlmResilience::isRetryable)
+                        .doBeforeRetry(signal -> retries.increment())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Guards a streaming call with the breaker and limiter. Streams are not retried or hedged,
+     * since part of the answer may already have reached the client.
+     */
+    public <T> Flux<T> executeStream(Supplier<Flux<T>> call) {
+        return Flux.defer(() -> guard(call.get()));
+    }
+
+    private <T> Mono<T> hedged(Mono<T> attempt) {
+        if (hedgeDelay == null) {
+            return attempt;
+        }
+        Mono<T> hedge = Mono.delay(hedgeDelay).flatMap(tick -> {
+            if (!limiter.hasHeadroom()) {
+                return Mono.empty();
+            }
+            hedges.increment();
+            return attempt;
+        });
+        // firstWithValue only fails when both attempts failed; report the primary's error then.
+        return Mono.defer(() -> {
+            Throwable[] primaryError = new Throwable[1];
+            return Mono.firstWithValue(attempt.doOnError(e -> primaryError[0] = e), hedge)
+                    .onErrorMap(e -> primaryError[0] != null ? primaryError[0] : e);
+        });
+    }
+
+    private <T> Flux<T> guard(Flux<T> upstream) {
+        if (!breaker.tryAcquire()) {
+            shortCircuited.increment();
+            return Flux.error(new CircuitOpenException("AI service is temporarily unavailable"));
+        }
+        if (!limiter.tryAcquire()) {
+            breaker.onIgnored();
+            limited.increment();
+            return Flux.error(new ServiceUnavailableException(LIMIT_MESSAGE));
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean settled = new AtomicBoolean();
+        return upstream
+                .doOnComplete(() -> {
+                    if (settled.compareAndSet(false, true)) {
+                        limiter.onSuccess(System.nanoTime() - start);
+                        breaker.onSuccess();
+                        successes.increment();
+                    }
+                })
+                .doOnError(e -> {
+                    if (!settled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    if (e instanceof ServiceUnavailableException) {
+                        // Rejected by our own executor; says nothing about the upstream.
+                        limiter.onIgnored();
+                        breaker.onIgnored();
+                    } else {
+                        limiter.onFailure();
+                        breaker.onFailure();
+                        failures.increment();
+                    }
+                })
+                .doFinally(signal -> {
+                    if (settled.compareAndSet(false, true)) {
+                        // Cancelled: the losing hedge, or a client that went away.
+                        limiter.onIgnored();
+                        breaker.onIgnored();
+                    }
+                });
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        return !(e instanceof ServiceUnavailableException) && !(e instanceof CircuitOpenException);
+    }
+
+    private Counter callCounter(String outcome) {
+        return Counter.builder("llm.calls").tag("outcome", outcome).register(meterRegistry);
+    }
+
+    private void onTransition(CircuitBreaker.State to) {
+        Counter.builder("llm.breaker.transitions").tag("to", to.name().toLowerCase()).register(meterRegistry).increment();
+        if (to == CircuitBreaker.State.OPEN) {
+            log.warn("LLM circuit breaker opened");
+        } else {
+            log.info("LLM circuit breaker is now {}", to.name().toLowerCase());
+        }
+    }
+}
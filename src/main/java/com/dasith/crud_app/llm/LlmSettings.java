@@ -0,0 +1,22 @@
+package com.dasith.crud_app.llm;
+
+import com.dasith.crud_app.model.AIAgent;
+
+import java.time.Duration;
+
+/**
+ * Model and call policy for one business. Values set on the business's {@link AIAgent}
+ * override the application defaults.
+ */
+public record LlmSettings(String model, Duration timeout, int maxRetries) {
+
+    public LlmSettings withOverrides(AIAgent agent) {
+        if (agent == null) {
+            return this;
+        }
+        return new LlmSettings(
+                agent.getModelName() != null ? agent.getModelName() : model,
+                agent.getTimeoutMs() != null ? Duration.ofMillis(agent.getTimeoutMs()) : timeout,
+                agent.getMaxRetries() != null ? agent.getMaxRetries() : maxRetries);
+    }
+}
@@ -0,0 +1,80 @@
+package com.dasith.crud_app.llm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Offline stand-in for Gemini, enabled with {@code app.llm.backend=stub}. Answers are derived
+ * from the prompt alone, so the same question always gets the same answer. Latency and a
+ * failure rate can be configured to load-test the whole /api/aiagent path without network
+ * access; failures come from a seeded random sequence so runs are repeatable.
+ */
+@Component
+@ConditionalOnProperty(name = "app.llm.backend", havingValue = "stub")
+@Slf4j
+public class StubLlmClient implements LlmClient {
+
+    private final long latencyMs;
+    private final long chunkLatencyMs;
+    private final double errorRate;
+    private final Random random;
+
+    public StubLlmClient(@Value("${app.llm.stub.latency-ms:300}") long latencyMs,
+                         @Value("${app.llm.stub.chunk-latency-ms:20}") long chunkLatencyMs,
+                         @Value("${app.llm.stub.error-rate:0.0}") double errorRate,
+                         @Value("${app.llm.stub.seed:42}") long seed) {
+        this.latencyMs = latencyMs;
+        this.chunkLatencyMs = chunkLatencyMs;
+        this.errorRate = errorRate;
+        this.random = new Random(seed);
+        log.warn("Using the stub LLM backend (latency={}ms, error rate={})", latencyMs, errorRate);
+    }
+
+    @Override
+    public String generate(String model, String prompt) {
+        sleep(latencyMs);
+        failIfInjected();
+        return answer(model, prompt);
+    }
+
+    @Override
+    public Stream<String> generateStream(String model, String prompt) {
+        sleep(latencyMs);
+        failIfInjected();
+        return Arrays.stream(answer(model, prompt).split("(?<= )"))
+                .peek(chunk -> sleep(chunkLatencyMs));
+    }
+
+    private void failIfInjected() {
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            throw new IllegalStateException("Injected stub LLM failure");
+        }
+    }
+
+    private static String answer(String model, String prompt) {
+        // The prompt ends with "User: <question>\nAI:"; echo the question back.
+        int start = prompt.lastIndexOf("User: ");
+        int end = prompt.lastIndexOf("\nAI:");
+        String question = start >= 0 && end > start ? prompt.substring(start + 6, end) : prompt;
+        return "[" + model + " stub] Thanks for asking about \"" + question + "\". " +
+                "This is a canned answer (ref " + Integer.toHexString(prompt.hashCode()) + ").";
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating LLM latency", e);
+        }
+    }
+}
@@ -15,6 +15,11 @@ public class AIAgent {
     private String agentName;
     private String agentPersonality; // e.g., "friendly", "professional"
 
+    // LLM call settings for this business; null means the application default.
+    private String modelName; // e.g., "gemini-2.5-flash"
+    private Long timeoutMs;
+    private Integer maxRetries;
+
     // One AI Agent belongs to one Business.
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "business_id", referencedColumnName = "id") // Foreign key column.
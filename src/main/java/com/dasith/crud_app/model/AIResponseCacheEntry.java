@@ -0,0 +1,47 @@
+package com.dasith.crud_app.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A persisted AI agent answer (second-level cache). Keyed by business and the SHA-256 of the
+ * normalized prompt; {@code contextVersion} is the fingerprint of the prompt context the
+ * answer was generated from, so answers for an older catalog are never served.
+ */
+@Data
+@Entity
+@Table(name = "ai_response_cache",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ai_response_cache_key", columnNames = {"business_id", "prompt_hash"}),
+        indexes = @Index(name = "idx_ai_response_cache_expires_at", columnList = "expires_at"))
+public class AIResponseCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_id", nullable = false)
+    private Long businessId;
+
+    @Column(name = "prompt_hash", nullable = false, length = 64)
+    private String promptHash;
+
+    @Column(name = "prompt_key", nullable = false, columnDefinition = "TEXT")
+    private String promptKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "context_version", nullable = false)
+    private long contextVersion;
+
+    @Column(name = "hit_count", nullable = false)
+    private long hitCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
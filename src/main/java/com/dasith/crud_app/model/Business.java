@@ -13,7 +13,7 @@ import java.util.List;
 @Entity
 @Data
 
-@Table(name = "businesses")
+@Table(name = "businesses", indexes = @Index(name = "idx_businesses_user_id_id", columnList = "user_id, id"))
 @NoArgsConstructor
 @AllArgsConstructor
 public class Business {
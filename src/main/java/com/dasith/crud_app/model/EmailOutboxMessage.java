@@ -0,0 +1,70 @@
+package com.dasith.crud_app.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting to be sent. Written in the same transaction as the change that caused it
+ * and deleted once the mail server accepted it; messages that keep failing end up DEAD, with
+ * their content removed, and are purged after {@code app.mail.outbox.dead-retention}.
+ *
+ * The text is stored as a template id and its parameters and rendered at send time;
+ * {@code body} is only set on rows queued before templates were introduced.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "email_outbox", indexes = @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"))
+public class EmailOutboxMessage {
+
+    public enum Status {
+        PENDING, DEAD
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(length = 64)
+    private String template;
+
+    @Column(columnDefinition = "TEXT")
+    private String parameters;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public EmailOutboxMessage(String recipient, String subject, String template, String parameters) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.template = template;
+        this.parameters = parameters;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
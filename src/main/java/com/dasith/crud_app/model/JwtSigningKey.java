@@ -0,0 +1,35 @@
+package com.dasith.crud_app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One JWT signing key, generated at random by the first instance that needs it. The key signs
+ * from {@code activeFrom} until the next key becomes active and verifies until
+ * {@code verifyUntil}, when the last token it signed has expired; the row is then deleted.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "jwt_signing_keys", indexes = @Index(name = "idx_jwt_signing_keys_verify_until", columnList = "verify_until"))
+public class JwtSigningKey {
+
+    @Id
+    @Column(length = 32)
+    private String kid;
+
+    // Base64 of the raw HMAC-SHA256 key, encrypted with SecretCipher (80 characters)
+    @Column(name = "key_material", nullable = false, length = 88)
+    private String keyMaterial;
+
+    @Column(name = "active_from", nullable = false)
+    private LocalDateTime activeFrom;
+
+    @Column(name = "verify_until", nullable = false)
+    private LocalDateTime verifyUntil;
+}
@@ -8,7 +8,12 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Data // Lombok annotation to generate getters, setters, toString, etc.
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Keyset pagination: one index per sort order, id as the tie breaker
+        @Index(name = "idx_products_business_id_id", columnList = "business_id, id"),
+        @Index(name = "idx_products_business_id_price_id", columnList = "business_id, price, id"),
+        @Index(name = "idx_products_business_id_name_id", columnList = "business_id, name, id")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 public class Product {
@@ -61,11 +61,9 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private boolean credentialsNonExpired = true;
 
-    @Column(name = "reset_token")
-    private String resetToken;
-
-    @Column(name = "reset_token_expiry")
-    private LocalDateTime resetTokenExpiry;
+    // Refresh tokens issued before this moment are rejected (set on password change/reset).
+    @Column(name = "credentials_changed_at")
+    private LocalDateTime credentialsChangedAt;
 
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -1,7 +1,28 @@
 package com.dasith.crud_app.repository;
 
+import com.dasith.crud_app.dto.AgentView;
 import com.dasith.crud_app.model.AIAgent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface AIAgentRepository extends JpaRepository<AIAgent, Long> {
+
+    Optional<AIAgent> findByBusinessId(Long businessId);
+
+    @Modifying
+    @Query("DELETE FROM AIAgent a WHERE a.business.id = :businessId")
+    int bulkDeleteByBusinessId(@Param("businessId") Long businessId);
+
+    @Query("""
+            SELECT new com.dasith.crud_app.dto.AgentView(a.id, a.business.id, a.agentName, a.agentPersonality,
+                a.modelName, a.timeoutMs, a.maxRetries)
+            FROM AIAgent a WHERE a.business.id IN :businessIds
+            """)
+    List<AgentView> findViewsByBusinessIds(@Param("businessIds") Collection<Long> businessIds);
 }
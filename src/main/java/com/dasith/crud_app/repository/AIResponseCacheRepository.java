@@ -0,0 +1,69 @@
+package com.dasith.crud_app.repository;
+
+import com.dasith.crud_app.model.AIResponseCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface AIResponseCacheRepository extends JpaRepository<AIResponseCacheEntry, Long> {
+
+    Optional<AIResponseCacheEntry> findByBusinessIdAndPromptHash(Long businessId, String promptHash);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO ai_response_cache
+                (business_id, prompt_hash, prompt_key, response, context_version, hit_count, created_at, expires_at)
+            VALUES (:businessId, :promptHash, :promptKey, :response, :contextVersion, 0, :createdAt, :expiresAt)
+            ON CONFLICT (business_id, prompt_hash) DO UPDATE SET
+                prompt_key = EXCLUDED.prompt_key,
+                response = EXCLUDED.response,
+                context_version = EXCLUDED.context_version,
+                created_at = EXCLUDED.created_at,
+                expires_at = EXCLUDED.expires_at
+            """, nativeQuery = true)
+    void upsert(@Param("businessId") Long businessId,
+                @Param("promptHash") String promptHash,
+                @Param("promptKey") String promptKey,
+                @Param("response") String response,
+                @Param("contextVersion") long contextVersion,
+                @Param("createdAt") LocalDateTime createdAt,
+                @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE AIResponseCacheEntry e SET e.hitCount = e.hitCount + :hits " +
+            "WHERE e.businessId = :businessId AND e.promptHash = :promptHash")
+    int addHits(@Param("businessId") Long businessId, @Param("promptHash") String promptHash, @Param("hits") long hits);
+
+    @Modifying
+    @Query("DELETE FROM AIResponseCacheEntry e WHERE e.businessId = :businessId")
+    int deleteByBusinessId(@Param("businessId") Long businessId);
+
+    @Modifying
+    @Query("DELETE FROM AIResponseCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * The {@code perBusiness} most used live entries of every business, at most {@code limit}
+     * in total, hottest first.
+     */
+    @Query(value = """
+            SELECT ranked.id, ranked.business_id, ranked.prompt_hash, ranked.prompt_key, ranked.response,
+                   ranked.context_version, ranked.hit_count, ranked.created_at, ranked.expires_at
+            FROM (
+                SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.business_id ORDER BY c.hit_count DESC, c.created_at DESC) AS rn
+                FROM ai_response_cache c
+                WHERE c.expires_at > :now
+            ) ranked
+            WHERE ranked.rn <= :perBusiness
+            ORDER BY ranked.hit_count DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<AIResponseCacheEntry> findHottest(@Param("now") LocalDateTime now,
+                                           @Param("perBusiness") int perBusiness,
+                                           @Param("limit") int limit);
+}
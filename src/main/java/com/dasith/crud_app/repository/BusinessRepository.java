@@ -1,10 +1,35 @@
 package com.dasith.crud_app.repository;
 
+import com.dasith.crud_app.dto.BusinessView;
 import com.dasith.crud_app.model.Business;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface BusinessRepository extends JpaRepository<Business,Long> {
     List<Business> findByUserId(Long UserId);
+
+    // Deletes the row only; callers remove products and the agent first.
+    @Modifying
+    @Query("DELETE FROM Business b WHERE b.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
+
+    // Projections for the read endpoints; see BusinessService#withProductsAndAgents.
+
+    @Query("""
+            SELECT new com.dasith.crud_app.dto.BusinessView(b.id, b.name, b.type, b.industry, b.description)
+            FROM Business b WHERE b.user.id = :userId AND b.id > :afterId ORDER BY b.id ASC
+            """)
+    List<BusinessView> findViewsByUserId(@Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            SELECT new com.dasith.crud_app.dto.BusinessView(b.id, b.name, b.type, b.industry, b.description)
+            FROM Business b WHERE b.id = :id
+            """)
+    Optional<BusinessView> findViewById(@Param("id") Long id);
 }
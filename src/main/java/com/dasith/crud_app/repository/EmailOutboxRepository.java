@@ -0,0 +1,35 @@
+package com.dasith.crud_app.repository;
+
+import com.dasith.crud_app.model.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * Locks the next due messages. Rows locked by another dispatcher are skipped, so several
+     * instances can drain the outbox without sending anything twice.
+     */
+    @Query(value = """
+            SELECT * FROM email_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<EmailOutboxMessage> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(EmailOutboxMessage.Status status);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM email_outbox
+            WHERE id IN (SELECT id FROM email_outbox WHERE status = 'DEAD' AND created_at < :before LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteDeadBatch(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,37 @@
+package com.dasith.crud_app.repository;
+
+import com.dasith.crud_app.model.JwtSigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+    /**
+     * Inserts the key unless another instance already created one with this kid; returns the
+     * number of rows inserted.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO jwt_signing_keys (kid, key_material, active_from, verify_until)
+            VALUES (:kid, :keyMaterial, :activeFrom, :verifyUntil)
+            ON CONFLICT (kid) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("kid") String kid,
+                       @Param("keyMaterial") String keyMaterial,
+                       @Param("activeFrom") LocalDateTime activeFrom,
+                       @Param("verifyUntil") LocalDateTime verifyUntil);
+
+    List<JwtSigningKey> findByVerifyUntilAfter(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM JwtSigningKey k WHERE k.verifyUntil < :now")
+    int deleteRetired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,30 @@
+package com.dasith.crud_app.repository;
+
+import com.dasith.crud_app.model.PasswordResetToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
+
+    Optional<PasswordResetToken> findByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Deletes at most {@code limit} expired tokens, found through the expires_at index, so
+     * that each call holds its row locks only briefly. Returns the number of rows deleted.
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM password_reset_tokens
+            WHERE id IN (SELECT id FROM password_reset_tokens WHERE expires_at < :now LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -1,17 +1,85 @@
 package com.dasith.crud_app.repository;
 
+import com.dasith.crud_app.dto.ProductView;
 import com.dasith.crud_app.model.Product;
-import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findByBusinessId(Long businessId);
 
+    List<Product> findByBusinessIdOrderByIdAsc(Long businessId, Limit limit);
+
+    /**
+     * The first {@code perBusiness} products (in id order) of each business, for list views;
+     * the full catalog is read through the keyset product pages.
+     */
+    @Query("""
+            SELECT new com.dasith.crud_app.dto.ProductView(r.id, r.businessId, r.name, r.description, r.price, r.category, r.stock)
+            FROM (
+                SELECT p.id AS id, p.business.id AS businessId, p.name AS name, p.description AS description,
+                       p.price AS price, p.category AS category, p.stock AS stock,
+                       row_number() OVER (PARTITION BY p.business.id ORDER BY p.id) AS rowNumber
+                FROM Product p WHERE p.business.id IN :businessIds
+            ) r
+            WHERE r.rowNumber <= :perBusiness
+            ORDER BY r.id ASC
+            """)
+    List<ProductView> findFirstViewsByBusinessIds(@Param("businessIds") Collection<Long> businessIds,
+                                                  @Param("perBusiness") int perBusiness);
+
+    // Keyset pages. Rows with a value are read by a row-value seek over (business_id, column, id),
+    // which never matches nulls; rows with a null value come last, read by id once those run out.
+
+    List<Product> findByBusinessIdAndIdGreaterThanOrderByIdAsc(Long businessId, Long afterId, Limit limit);
+
+    @Query("""
+            SELECT p FROM Product p WHERE p.business.id = :businessId
+              AND (p.price, p.id) > (:price, :afterId)
+            ORDER BY p.price ASC, p.id ASC
+            """)
+    List<Product> findPageByPrice(@Param("businessId") Long businessId, @Param("price") Double price,
+                                  @Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            SELECT p FROM Product p WHERE p.business.id = :businessId AND p.price IS NULL AND p.id > :afterId
+            ORDER BY p.id ASC
+            """)
+    List<Product> findPageByNullPrice(@Param("businessId") Long businessId, @Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            SELECT p FROM Product p WHERE p.business.id = :businessId
+              AND (p.name, p.id) > (:name, :afterId)
+            ORDER BY p.name ASC, p.id ASC
+            """)
+    List<Product> findPageByName(@Param("businessId") Long businessId, @Param("name") String name,
+                                 @Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            SELECT p FROM Product p WHERE p.business.id = :businessId AND p.name IS NULL AND p.id > :afterId
+            ORDER BY p.id ASC
+            """)
+    List<Product> findPageByNullName(@Param("businessId") Long businessId, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Deletes up to {@code limit} products of the business in one statement, without loading
+     * them. Returns the number of rows deleted; call again until it is below the limit.
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM products
+            WHERE id IN (SELECT id FROM products WHERE business_id = :businessId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteBatchByBusinessId(@Param("businessId") Long businessId, @Param("limit") int limit);
+
     @Modifying
-    @Transactional
-    void deleteProductByBusinessId(Long businessId);
+    @Query("DELETE FROM Product p WHERE p.business.id = :businessId")
+    int bulkDeleteByBusinessId(@Param("businessId") Long businessId);
 }
@@ -0,0 +1,36 @@
+package com.dasith.crud_app.repository;
+
+import com.dasith.crud_app.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Inserts the row; fails with a constraint violation if the token is already revoked.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO revoked_tokens (jti, email, expires_at, revoked_at)
+            VALUES (:jti, :email, :expiresAt, :revokedAt)
+            """, nativeQuery = true)
+    int insert(@Param("jti") String jti,
+               @Param("email") String email,
+               @Param("expiresAt") LocalDateTime expiresAt,
+               @Param("revokedAt") LocalDateTime revokedAt);
+
+    @Query("SELECT r.jti FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findActiveIds(@Param("now") LocalDateTime now);
+
+    @Query("SELECT r.jti FROM RevokedToken r WHERE r.revokedAt >= :since AND r.expiresAt > :now")
+    List<String> findActiveIdsRevokedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
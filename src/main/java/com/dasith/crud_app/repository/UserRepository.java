@@ -4,7 +4,6 @@ import com.dasith.crud_app.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -13,8 +12,4 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
-    
-    Optional<User> findByResetToken(String resetToken);
-    
-    void deleteByResetTokenExpiryBefore(LocalDateTime dateTime);
 }
@@ -0,0 +1,157 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs the blocking parts of the AI pipeline (JPA lookups, Gemini calls) off the request
+ * threads. At most {@code max-concurrency} calls run at once and at most {@code max-queued}
+ * wait behind them; anything beyond that is rejected straight away with a 503.
+ *
+ * Two execution modes are supported: {@code bounded-elastic} (a dedicated Reactor pool whose
+ * thread cap equals the concurrency limit) and {@code virtual} (one virtual thread per call,
+ * with the concurrency limit enforced by a semaphore).
+ */
+@Component
+@Slf4j
+public class AIAgentExecutor implements DisposableBean {
+
+    private static final String BUSY_MESSAGE = "AI agent is busy, please try again shortly";
+
+    private final Scheduler scheduler;
+    private final int capacity;
+    private final Semaphore permits;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter rejected;
+
+    public AIAgentExecutor(@Value("${app.aiagent.executor.mode:bounded-elastic}") String mode,
+                           @Value("${app.aiagent.executor.max-concurrency:32}") int maxConcurrency,
+                           @Value("${app.aiagent.executor.max-queued:256}") int maxQueued,
+                           MeterRegistry meterRegistry) {
+        this.scheduler = switch (mode) {
+            case "virtual" -> Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "aiagent");
+            case "bounded-elastic" -> Schedulers.newBoundedElastic(maxConcurrency, maxQueued, "aiagent");
+            default -> throw new IllegalArgumentException("Unknown app.aiagent.executor.mode: " + mode);
+        };
+        this.capacity = maxConcurrency + maxQueued;
+        this.permits = new Semaphore(maxConcurrency);
+
+        Gauge.builder("aiagent.executor.active", active, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("aiagent.executor.queued", queued, AtomicInteger::get).register(meterRegistry);
+        this.rejected = Counter.builder("aiagent.executor.rejected").register(meterRegistry);
+        log.info("AI agent executor started in {} mode (concurrency={}, queue={})", mode, maxConcurrency, maxQueued);
+    }
+
+    public <T> Mono<T> submit(Callable<T> task) {
+        return Mono.defer(() -> {
+            Slot slot = admit();
+            if (slot == null) {
+                return Mono.error(new ServiceUnavailableException(BUSY_MESSAGE));
+            }
+            return Mono.fromCallable(() -> {
+                        slot.start();
+                        return task.call();
+                    })
+                    .subscribeOn(scheduler)
+                    .onErrorMap(RejectedExecutionException.class, e -> new ServiceUnavailableException(BUSY_MESSAGE))
+                    .doFinally(signal -> slot.release());
+        });
+    }
+
+    /**
+     * Like {@link #submit} but for a blocking stream of results. The slot is held until the
+     * stream completes, fails or is cancelled, and the stream is closed in every case.
+     */
+    public <T> Flux<T> submitStream(Callable<Stream<T>> task) {
+        return Flux.defer(() -> {
+            Slot slot = admit();
+            if (slot == null) {
+                return Flux.<T>error(new ServiceUnavailableException(BUSY_MESSAGE));
+            }
+            return Flux.fromStream(() -> {
+                        try {
+                            slot.start();
+                            return task.call();
+                        } catch (RuntimeException e) {
+                            throw e;
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    })
+                    .subscribeOn(scheduler)
+                    .onErrorMap(RejectedExecutionException.class, e -> new ServiceUnavailableException(BUSY_MESSAGE))
+                    .doFinally(signal -> slot.release());
+        });
+    }
+
+    private Slot admit() {
+        if (admitted.incrementAndGet() > capacity) {
+            admitted.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+        queued.incrementAndGet();
+        return new Slot();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    /**
+     * One admitted unit of work: queued until it gets a permit, active until released.
+     */
+    private final class Slot {
+        private static final int QUEUED = 0;
+        private static final int ACTIVE = 1;
+        private static final int RELEASED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        void start() throws InterruptedException {
+            permits.acquire();
+            if (!state.compareAndSet(QUEUED, ACTIVE)) {
+                // Released (cancelled) while waiting for the permit.
+                permits.release();
+                throw new CancellationException("AI agent task was cancelled before it started");
+            }
+            queued.decrementAndGet();
+            active.incrementAndGet();
+        }
+
+        void release() {
+            int previous = state.getAndSet(RELEASED);
+            if (previous == RELEASED) {
+                return;
+            }
+            if (previous == QUEUED) {
+                queued.decrementAndGet();
+            } else {
+                active.decrementAndGet();
+                permits.release();
+            }
+            admitted.decrementAndGet();
+        }
+    }
+}
@@ -1,85 +1,186 @@
 package com.dasith.crud_app.service;
 
+import com.dasith.crud_app.cache.AIResponseCache;
+import com.dasith.crud_app.cache.BusinessPromptContext;
+import com.dasith.crud_app.cache.PersistentResponseCache;
+import com.dasith.crud_app.cache.PromptContextCache;
+import com.dasith.crud_app.exception.ServiceUnavailableException;
+import com.dasith.crud_app.llm.LlmClient;
+import com.dasith.crud_app.llm.LlmResilience;
+import com.dasith.crud_app.llm.LlmSettings;
 import com.dasith.crud_app.model.Business;
-import com.dasith.crud_app.model.Product;
-import com.google.genai.Client;
-import com.google.genai.types.GenerateContentResponse;
+import com.dasith.crud_app.repository.AIAgentRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
+@Slf4j
 public class AIAgentService {
+    private static final String FALLBACK_RESPONSE = "I'm currently experiencing high demand. Please try again in a few moments.";
+
     private final BusinessService businessService;
     private final ProductService productService;
-    private final Client geminiClient;
-    private final Map<String, String> responseCache = new ConcurrentHashMap<>();
+    private final AIAgentRepository aiAgentRepository;
+    private final LlmClient llmClient;
+    private final AIResponseCache responseCache;
+    private final PersistentResponseCache persistentCache;
+    private final PromptContextCache promptContexts;
+    private final AIAgentExecutor executor;
+    private final LlmResilience resilience;
+    private final LlmSettings defaultSettings;
+    private final Duration totalTimeout;
+    // Upstream calls that are still running, shared by every caller asking the same question.
+    private final Map<AIResponseCache.Key, Mono<String>> inFlight = new ConcurrentHashMap<>();
 
-    public AIAgentService(BusinessService businessService, ProductService productService,@Value("${gemini.api.key}") String apiKey ) {
+    public AIAgentService(BusinessService businessService, ProductService productService,
+                          AIAgentRepository aiAgentRepository, LlmClient llmClient, AIResponseCache responseCache,
+                          PersistentResponseCache persistentCache, PromptContextCache promptContexts, AIAgentExecutor executor,
+                          LlmResilience resilience,
+                          @Value("${app.llm.model:gemini-2.5-flash}") String defaultModel,
+                          @Value("${app.aiagent.request-timeout:30000}") long requestTimeoutMillis,
+                          @Value("${app.llm.max-retries:1}") int defaultMaxRetries,
+                          @Value("${app.aiagent.total-timeout:60000}") long totalTimeoutMillis) {
         this.businessService = businessService;
         this.productService = productService;
-        this.geminiClient = Client.builder().apiKey(apiKey).build();
+        this.aiAgentRepository = aiAgentRepository;
+        this.llmClient = llmClient;
+        this.responseCache = responseCache;
+        this.persistentCache = persistentCache;
+        this.promptContexts = promptContexts;
+        this.executor = executor;
+        this.resilience = resilience;
+        this.defaultSettings = new LlmSettings(defaultModel, Duration.ofMillis(requestTimeoutMillis), defaultMaxRetries);
+        this.totalTimeout = Duration.ofMillis(totalTimeoutMillis);
     }
 
     public Mono<String> getGeminiResponse(String userPrompt, Long businessId) {
         // Generate cache key
-        String cacheKey = businessId + ":" + userPrompt.trim();
+        String prompt = userPrompt.trim();
+        AIResponseCache.Key cacheKey = responseCache.keyFor(businessId, prompt);
 
-        // Check cache first
-        if (responseCache.containsKey(cacheKey)) {
-            return Mono.just(responseCache.get(cacheKey));
+        // Check cache first (exact, normalized and near-duplicate questions)
+        String cached = responseCache.get(cacheKey, prompt);
+        if (cached != null) {
+            persistentCache.recordHit(cacheKey);
+            return Mono.just(cached);
         }
 
-        return Mono.fromCallable(() -> {
-            Business businessDetails = businessService.getBusinessById(businessId)
-                    .orElseThrow(() -> new RuntimeException("Business not found with id " + businessId));
-
-            List<Product> productList = productService.getProductsByBusinessId(businessId);
-            String formattedProductsList = formatProductsList(productList);
-
-            String businessSpecificPrompt = "You are a friendly, enthusiastic, and knowledgeable AI assistant for " +
-                    businessDetails.getName() + ". Your primary goal is to provide outstanding customer service by answering questions accurately and helping customers find the perfect products to meet their needs. " +
-                    "Business description: " + businessDetails.getDescription() + " " +
-                    "Business industry: " + businessDetails.getIndustry() + " " +
-                    "Business Type: " + businessDetails.getType();
+        return inFlight.computeIfAbsent(cacheKey, key -> sharedCall(key, prompt));
+    }
 
-            String finalPrompt = businessSpecificPrompt + "\nProducts details:\n" +
-                    formattedProductsList + "\n\nUser: " + userPrompt + "\nAI:";
+    /**
+     * Streams the answer chunk by chunk as the model produces it. The assembled answer is
+     * cached once the stream completes, so a later identical question is served from the
+     * cache; a stream that fails or is cancelled by the client leaves nothing behind.
+     * Cancelling the returned Flux closes the upstream stream. Streams are not retried.
+     */
+    public Flux<String> streamGeminiResponse(String userPrompt, Long businessId) {
+        String prompt = userPrompt.trim();
+        AIResponseCache.Key cacheKey = responseCache.keyFor(businessId, prompt);
 
-            try {
-                GenerateContentResponse response = geminiClient.models.generateContent(
-                        "gemini-2.5-flash",
-                        finalPrompt,
-                        null);
+        String cached = responseCache.get(cacheKey, prompt);
+        if (cached != null) {
+            persistentCache.recordHit(cacheKey);
+            return Flux.just(cached);
+        }
 
-                String result = response.text();
-                responseCache.put(cacheKey, result);
-                return result;
-            } catch (Exception e) {
-                return "I'm currently experiencing high demand. Please try again in a few moments.";
-            }
+        long epoch = responseCache.epoch(businessId);
+        return promptContext(businessId).flatMapMany(context -> {
+            LlmSettings settings = context.llmSettings();
+            long contextVersion = context.fingerprint();
+            StringBuilder assembled = new StringBuilder();
+            Flux<String> generated = resilience.executeStream(() -> executor.submitStream(
+                            () -> llmClient.generateStream(settings.model(), context.render(prompt))))
+                    .timeout(settings.timeout())
+                    .doOnNext(assembled::append)
+                    .doOnComplete(() -> {
+                        responseCache.put(cacheKey, prompt, assembled.toString(), epoch);
+                        persistentCache.put(cacheKey, contextVersion, assembled.toString());
+                    })
+                    .onErrorResume(e -> !(e instanceof ServiceUnavailableException) && assembled.isEmpty(), e -> {
+                        log.warn("Streaming AI response failed for business {}: {}", businessId, e.getMessage());
+                        return Flux.just(FALLBACK_RESPONSE);
+                    });
+            return persistedAnswer(cacheKey, prompt, contextVersion, epoch).flux().switchIfEmpty(generated);
         });
     }
 
-    private String formatProductsList(List<Product> products) {
-        if (products == null || products.isEmpty()) {
-            return "No product or service available.";
+    /**
+     * Builds the single upstream call for a key. cache() makes every subscriber see the same
+     * result or error, and the key is released as soon as the call settles, so later requests
+     * either hit the response cache or start a fresh call. A subscriber that goes away only
+     * detaches itself; the call keeps running for the others until it finishes or times out.
+     * The blocking work runs on the AI executor, never on the subscribing thread.
+     *
+     * Model, timeout and retry count come from the business's settings; breaker, adaptive
+     * limit, jittered retries and hedging are applied by {@link LlmResilience}. Only real
+     * answers are cached; when retries are exhausted or the breaker is open the caller gets the
+     * fallback text instead, and the next request tries again.
+     *
+     * Before calling the model the persistent cache is consulted with the context's
+     * fingerprint; answers are written to both cache levels. The in-memory cache only takes
+     * the answer if the business was not invalidated since the call started.
+     *
+     * The settings' timeout applies to each attempt; {@code total-timeout} bounds the whole
+     * call, retries and backoff included, since every coalesced caller waits on it.
+     */
+    private Mono<String> sharedCall(AIResponseCache.Key cacheKey, String prompt) {
+        long epoch = responseCache.epoch(cacheKey.businessId());
+        return promptContext(cacheKey.businessId())
+                .flatMap(context -> {
+                    LlmSettings settings = context.llmSettings();
+                    long contextVersion = context.fingerprint();
+                    Mono<String> generated = resilience.execute(settings,
+                                    () -> executor.submit(() -> llmClient.generate(settings.model(), context.render(prompt))))
+                            .timeout(totalTimeout)
+                            .doOnNext(result -> {
+                                responseCache.put(cacheKey, prompt, result, epoch);
+                                persistentCache.put(cacheKey, contextVersion, result);
+                            })
+                            .onErrorResume(e -> !(e instanceof ServiceUnavailableException), e -> {
+                                log.warn("AI response failed for business {}: {}", cacheKey.businessId(), e.getMessage());
+                                return Mono.just(FALLBACK_RESPONSE);
+                            });
+                    return persistedAnswer(cacheKey, prompt, contextVersion, epoch).switchIfEmpty(generated);
+                })
+                .doFinally(signal -> inFlight.remove(cacheKey))
+                .cache();
+    }
+
+    /**
+     * Looks the answer up in the persistent cache and promotes a hit to the in-memory cache.
+     * Empty on a miss.
+     */
+    private Mono<String> persistedAnswer(AIResponseCache.Key cacheKey, String prompt, long contextVersion, long epoch) {
+        if (!persistentCache.isEnabled()) {
+            return Mono.empty();
         }
+        return executor.submit(() -> persistentCache.get(cacheKey, contextVersion))
+                .doOnNext(answer -> responseCache.put(cacheKey, prompt, answer, epoch));
+    }
 
-        StringBuilder builder = new StringBuilder();
-        for (Product product : products) {
-            builder.append("- ")
-                    .append("Product Name: ").append(product.getName()).append(", ")
-                    .append("Description: ").append(product.getDescription()).append(", ")
-                    .append("Price: ").append(product.getPrice()).append(", ")
-                    .append("Category: ").append(product.getCategory()).append(", ")
-                    .append("Stock: ").append(product.getStock())
-                    .append("\n");
+    private Mono<BusinessPromptContext> promptContext(Long businessId) {
+        BusinessPromptContext context = promptContexts.getIfPresent(businessId);
+        if (context != null) {
+            return Mono.just(context);
         }
-        return builder.toString();
+        return executor.submit(() -> promptContexts.getOrLoad(businessId, () -> loadContext(businessId)));
+    }
+
+    private BusinessPromptContext loadContext(Long businessId) {
+        Business business = businessService.getBusinessById(businessId)
+                .orElseThrow(() -> new RuntimeException("Business not found with id " + businessId));
+        LlmSettings settings = defaultSettings.withOverrides(aiAgentRepository.findByBusinessId(businessId).orElse(null));
+        return promptContexts.create(
+                business,
+                productService.getProductsByBusinessId(businessId, promptContexts.maxProducts() + 1),
+                settings);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,13 @@
 package com.dasith.crud_app.service;
 
+import com.dasith.crud_app.cache.UserPrincipalCache;
+import com.dasith.crud_app.model.PasswordResetToken;
 import com.dasith.crud_app.model.User;
+import com.dasith.crud_app.repository.PasswordResetTokenRepository;
 import com.dasith.crud_app.repository.UserRepository;
+import com.dasith.crud_app.util.JwtPrincipal;
 import com.dasith.crud_app.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
@@ -11,45 +16,84 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.Base64;
+import java.util.HexFormat;
 
 @Service
 @Slf4j
 @Transactional
-public class AuthService implements UserDetailsService {
+public class AuthService implements UserDetailsService, UserDetailsPasswordService {
+
+    public record TokenPair(String accessToken, String refreshToken, User user) {}
+
+    private static final SecureRandom RANDOM = new SecureRandom();
 
     private final UserRepository userRepository;
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserPrincipalCache userCache;
 
     public AuthService(
             UserRepository userRepository,
+            PasswordResetTokenRepository passwordResetTokenRepository,
             @Lazy PasswordEncoder passwordEncoder,
             JwtUtil jwtUtil,
             @Lazy AuthenticationManager authenticationManager,
-            EmailService emailService) {
+            EmailService emailService,
+            TokenRevocationService tokenRevocationService,
+            UserPrincipalCache userCache) {
         this.userRepository = userRepository;
+        this.passwordResetTokenRepository = passwordResetTokenRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
         this.emailService = emailService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userCache = userCache;
     }
 
+    /**
+     * Loads the user for a password check. Always read from the database, never from
+     * {@link UserPrincipalCache}, so a changed password stops working on every instance at once.
+     */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
     }
 
+    /**
+     * Stores a rehashed password after a successful login (called by the authentication
+     * provider when the stored hash's cost is out of date). The password itself is unchanged,
+     * so issued tokens stay valid.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newEncodedPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+        user.setPassword(newEncodedPassword);
+        User saved = userRepository.save(user);
+        userCache.invalidate(user.getEmail());
+        log.info("Rehashed password for user: {}", user.getEmail());
+        return saved;
+    }
+
     public User registerUser(String email, String password, String firstName, String lastName) {
         if (userRepository.existsByEmail(email)) {
             throw new RuntimeException("User already exists with email: " + email);
@@ -65,27 +109,27 @@ public class AuthService implements UserDetailsService {
         User savedUser = userRepository.save(user);
         log.info("User registered successfully with email: {}", email);
 
-        // Send welcome email
-        try {
-            emailService.sendWelcomeEmail(email, firstName);
-        } catch (Exception e) {
-            log.warn("Failed to send welcome email to: {}", email, e);
-        }
+        // Queued with the user; sent once the registration commits
+        emailService.sendWelcomeEmail(email, firstName);
 
         return savedUser;
     }
 
-    public String authenticateUser(String email, String password) {
+    /**
+     * Authenticates the user and issues an access and a refresh token. The user is loaded
+     * once, by the authentication itself, and returned along with the tokens.
+     */
+    public TokenPair login(String email, String password) {
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(email, password)
             );
 
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String token = jwtUtil.generateToken(userDetails);
+            User user = (User) authentication.getPrincipal();
+            TokenPair tokens = new TokenPair(jwtUtil.generateToken(user), jwtUtil.generateRefreshToken(user), user);
             
             log.info("User authenticated successfully: {}", email);
-            return token;
+            return tokens;
         } catch (AuthenticationException e) {
             log.error("Authentication failed for email: {}", email, e);
             throw new RuntimeException("Invalid email or password");
@@ -96,29 +140,36 @@ public class AuthService implements UserDetailsService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
 
-        String resetToken = UUID.randomUUID().toString();
-        user.setResetToken(resetToken);
-        user.setResetTokenExpiry(LocalDateTime.now().plusHours(1)); // Token expires in 1 hour
+        byte[] tokenBytes = new byte[32];
+        RANDOM.nextBytes(tokenBytes);
+        String resetToken = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
 
-        userRepository.save(user);
+        // Only the latest reset link works
+        passwordResetTokenRepository.deleteByUserId(user.getId());
+        LocalDateTime now = LocalDateTime.now();
+        passwordResetTokenRepository.save(new PasswordResetToken(
+                null, sha256(resetToken), user.getId(), now.plusHours(1), now)); // Token expires in 1 hour
         emailService.sendPasswordResetEmail(email, resetToken);
         
         log.info("Password reset initiated for email: {}", email);
     }
 
     public void resetPassword(String resetToken, String newPassword) {
-        User user = userRepository.findByResetToken(resetToken)
+        PasswordResetToken token = passwordResetTokenRepository.findByTokenHash(sha256(resetToken))
                 .orElseThrow(() -> new RuntimeException("Invalid or expired reset token"));
 
-        if (user.getResetTokenExpiry().isBefore(LocalDateTime.now())) {
+        if (token.getExpiresAt().isBefore(LocalDateTime.now())) {
             throw new RuntimeException("Reset token has expired");
         }
 
+        User user = userRepository.findById(token.getUserId())
+                .orElseThrow(() -> new RuntimeException("Invalid or expired reset token"));
         user.setPassword(passwordEncoder.encode(newPassword));
-        user.setResetToken(null);
-        user.setResetTokenExpiry(null);
+        user.setCredentialsChangedAt(LocalDateTime.now());
 
         userRepository.save(user);
+        passwordResetTokenRepository.deleteByUserId(user.getId());
+        userCache.invalidate(user.getEmail());
         log.info("Password reset successfully for user: {}", user.getEmail());
     }
 
@@ -131,24 +182,76 @@ public class AuthService implements UserDetailsService {
         }
 
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setCredentialsChangedAt(LocalDateTime.now());
         userRepository.save(user);
+        userCache.invalidate(email);
         
         log.info("Password changed successfully for user: {}", email);
     }
 
-    public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email)
+    public UserPrincipalCache.UserSnapshot getUserByEmail(String email) {
+        return userCache.get(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
     }
 
-    public String refreshToken(String refreshToken) {
-        if (!jwtUtil.validateToken(refreshToken)) {
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token. The used
+     * refresh token is revoked, so presenting it again fails. Refresh tokens issued before
+     * the user's last password change are rejected. Tokens from before token ids were
+     * introduced (no jti) are accepted without rotation until they expire.
+     */
+    public TokenPair refreshToken(String refreshToken) {
+        JwtPrincipal principal;
+        try {
+            principal = jwtUtil.parseAndVerify(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+        if (principal.type() != null && !principal.isRefreshToken()) {
             throw new RuntimeException("Invalid refresh token");
         }
 
-        String email = jwtUtil.extractUsername(refreshToken);
-        UserDetails userDetails = loadUserByUsername(email);
-        
-        return jwtUtil.generateToken(userDetails);
+        // Read from the database: the cache may hold credentialsChangedAt from before a change
+        // made on another instance
+        User user = userRepository.findByEmail(principal.email())
+                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+        if (principal.issuedBefore(user.getCredentialsChangedAt())) {
+            throw new RuntimeException("Refresh token has been revoked");
+        }
+        if (principal.tokenId() != null
+                && !tokenRevocationService.revoke(principal.tokenId(), principal.email(), principal.expiresAt())) {
+            log.warn("Revoked refresh token presented again for user: {}", principal.email());
+            throw new RuntimeException("Refresh token has been revoked");
+        }
+
+        return new TokenPair(jwtUtil.generateToken(user), jwtUtil.generateRefreshToken(user), user);
+    }
+
+    /**
+     * Revokes the given tokens. Invalid or already expired tokens are ignored.
+     */
+    public void logout(String accessToken, String refreshToken) {
+        for (String token : new String[]{accessToken, refreshToken}) {
+            if (token == null || token.isBlank()) {
+                continue;
+            }
+            try {
+                JwtPrincipal principal = jwtUtil.parseAndVerify(token);
+                if (principal.tokenId() != null) {
+                    tokenRevocationService.revoke(principal.tokenId(), principal.email(), principal.expiresAt());
+                }
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Ignoring invalid token on logout: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
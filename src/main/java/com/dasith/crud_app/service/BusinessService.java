@@ -1,16 +1,34 @@
 package com.dasith.crud_app.service;
 
+import com.dasith.crud_app.dto.AgentView;
+import com.dasith.crud_app.dto.BusinessView;
+import com.dasith.crud_app.dto.CursorPage;
+import com.dasith.crud_app.dto.ProductView;
+import com.dasith.crud_app.event.CatalogChangedEvent;
 import com.dasith.crud_app.model.Business;
 import com.dasith.crud_app.model.User;
+import com.dasith.crud_app.repository.AIAgentRepository;
+import com.dasith.crud_app.repository.AIResponseCacheRepository;
 import com.dasith.crud_app.repository.BusinessRepository;
+import com.dasith.crud_app.repository.ProductRepository;
 import com.dasith.crud_app.repository.UserRepository;
+import com.dasith.crud_app.util.PageCursor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class BusinessService {
     @Autowired
     private BusinessRepository businessRepository;
@@ -18,6 +36,35 @@ public class BusinessService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private AIAgentRepository aiAgentRepository;
+
+    @Autowired
+    private AIResponseCacheRepository aiResponseCacheRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.pagination.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${app.pagination.unpaged-limit:1000}")
+    private int unpagedLimit;
+
+    @Value("${app.pagination.products-per-business:10}")
+    private int productsPerBusiness;
 
     public List<Business> getAllBusiness(){
         return businessRepository.findAll();
@@ -27,6 +74,11 @@ public class BusinessService {
         return businessRepository.findById(id);
     }
 
+    public Optional<BusinessView> getBusinessViewById(Long id) {
+        return businessRepository.findViewById(id)
+                .map(view -> withProductsAndAgents(List.of(view)).get(0));
+    }
+
     public Business createBusinessForUser(Long userId ,Business business) {
         // Find the user by their ID.
         User user=userRepository.findById(userId)
@@ -46,14 +98,72 @@ public class BusinessService {
         business.setType(newBusiness.getType());
         business.setIndustry(newBusiness.getIndustry());
         business.setDescription(newBusiness.getDescription());
-        return businessRepository.save(business);
+        Business savedBusiness = businessRepository.save(business);
+        eventPublisher.publishEvent(CatalogChangedEvent.businessUpdated(id));
+        return savedBusiness;
     }
 
+    /**
+     * Deletes a business and everything that hangs off it with set-based statements, always
+     * in the same order: products in batches, then in one transaction any products added in
+     * the meantime, the AI agent, the persisted AI answers and the business row. No entity is
+     * loaded, so the JPA cascades never run.
+     */
     public void deteleBusiness(Long id) {
-        businessRepository.deleteById(id);
+        long products = productService.deleteProductsInBatches(id);
+        Integer deleted = transactionTemplate.execute(status -> {
+            productRepository.bulkDeleteByBusinessId(id);
+            aiAgentRepository.bulkDeleteByBusinessId(id);
+            aiResponseCacheRepository.deleteByBusinessId(id);
+            return businessRepository.bulkDeleteById(id);
+        });
+        eventPublisher.publishEvent(CatalogChangedEvent.businessDeleted(id));
+        log.info("Deleted business {} ({} rows) with {} products", id, deleted, products);
+    }
+
+    // Unpaged listing, capped at app.pagination.unpaged-limit; use getBusinessPage beyond that.
+    public List<BusinessView> getBusinessByUserId(Long userId) {
+        return withProductsAndAgents(businessRepository.findViewsByUserId(userId, 0L, Limit.of(unpagedLimit)));
+    }
+
+    public int getUnpagedLimit() {
+        return unpagedLimit;
+    }
+
+    // Keyset page of a user's businesses in id order; size is capped at app.pagination.max-size.
+    public CursorPage<BusinessView> getBusinessPage(Long userId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        long afterId = cursor == null || cursor.isBlank() ? 0L : PageCursor.decode(cursor, "id").id();
+        List<BusinessView> businesses = businessRepository.findViewsByUserId(userId, afterId, Limit.of(pageSize + 1));
+        if (businesses.size() <= pageSize) {
+            return new CursorPage<>(withProductsAndAgents(businesses), null);
+        }
+        List<BusinessView> page = withProductsAndAgents(businesses.subList(0, pageSize));
+        return new CursorPage<>(page, new PageCursor("id", null, page.get(pageSize - 1).getId()).encode());
     }
 
-    public List<Business> getBusinessByUserId(Long userId) {
-        return businessRepository.findByUserId(userId);
+    /**
+     * Attaches products and agents with one query each for the whole list, so a listing
+     * costs three queries regardless of how many businesses it contains. Each business gets
+     * at most {@code products-per-business} products; one extra is read to set moreProducts.
+     */
+    private List<BusinessView> withProductsAndAgents(List<BusinessView> businesses) {
+        if (businesses.isEmpty()) {
+            return businesses;
+        }
+        Map<Long, BusinessView> byId = businesses.stream()
+                .collect(Collectors.toMap(BusinessView::getId, Function.identity()));
+        for (ProductView product : productRepository.findFirstViewsByBusinessIds(byId.keySet(), productsPerBusiness + 1)) {
+            BusinessView business = byId.get(product.getBusinessId());
+            if (business.getProducts().size() < productsPerBusiness) {
+                business.getProducts().add(product);
+            } else {
+                business.setMoreProducts(true);
+            }
+        }
+        for (AgentView agent : aiAgentRepository.findViewsByBusinessIds(byId.keySet())) {
+            byId.get(agent.getBusinessId()).setAgent(agent);
+        }
+        return List.copyOf(businesses);
     }
 }
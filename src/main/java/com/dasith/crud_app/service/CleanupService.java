@@ -1,11 +1,15 @@
 package com.dasith.crud_app.service;
 
-import com.dasith.crud_app.repository.UserRepository;
+import com.dasith.crud_app.repository.EmailOutboxRepository;
+import com.dasith.crud_app.repository.PasswordResetTokenRepository;
+import com.dasith.crud_app.repository.RevokedTokenRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 
@@ -14,16 +18,68 @@ import java.time.LocalDateTime;
 @Slf4j
 public class CleanupService {
 
-    private final UserRepository userRepository;
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final TransactionTemplate transactionTemplate;
 
+    @Value("${app.cleanup.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.dead-retention:604800000}") // 7 days in milliseconds
+    private long deadEmailRetention;
+
+    /**
+     * Deletes expired reset tokens in batches of {@code app.cleanup.batch-size}, one short
+     * transaction per batch, so a large backlog never holds locks for long.
+     */
     @Scheduled(fixedRate = 3600000) // Run every hour
-    @Transactional
     public void cleanupExpiredResetTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        long purged = 0;
+        try {
+            Integer deleted;
+            do {
+                deleted = transactionTemplate.execute(status ->
+                        passwordResetTokenRepository.deleteExpiredBatch(now, batchSize));
+                purged += deleted != null ? deleted : 0;
+            } while (deleted != null && deleted == batchSize);
+            log.info("Cleaned up {} expired reset tokens", purged);
+        } catch (Exception e) {
+            log.error("Error cleaning up expired reset tokens after {} rows", purged, e);
+        }
+    }
+
+    @Scheduled(fixedRate = 3600000) // Run every hour
+    @Transactional
+    public void cleanupExpiredRevokedTokens() {
+        try {
+            // An expired token is rejected anyway, so its deny-list entry is no longer needed.
+            int removed = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+            log.debug("Cleaned up {} expired revoked tokens", removed);
+        } catch (Exception e) {
+            log.error("Error cleaning up expired revoked tokens", e);
+        }
+    }
+
+    /**
+     * Deletes dead-lettered emails older than {@code app.mail.outbox.dead-retention}, in
+     * batches like the reset tokens.
+     */
+    @Scheduled(fixedRate = 3600000) // Run every hour
+    public void purgeDeadEmails() {
+        LocalDateTime before = LocalDateTime.now().minusNanos(deadEmailRetention * 1_000_000);
+        long purged = 0;
         try {
-            userRepository.deleteByResetTokenExpiryBefore(LocalDateTime.now());
-            log.debug("Cleaned up expired reset tokens");
+            Integer deleted;
+            do {
+                deleted = transactionTemplate.execute(status ->
+                        emailOutboxRepository.deleteDeadBatch(before, batchSize));
+                purged += deleted != null ? deleted : 0;
+            } while (deleted != null && deleted == batchSize);
+            log.info("Purged {} dead-lettered emails", purged);
         } catch (Exception e) {
-            log.error("Error cleaning up expired reset tokens", e);
+            log.error("Error purging dead-lettered emails after {} rows", purged, e);
         }
     }
 }
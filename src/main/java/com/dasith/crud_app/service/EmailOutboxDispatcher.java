@@ -0,0 +1,173 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.model.EmailOutboxMessage;
+import com.dasith.crud_app.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends queued emails in the background. Each run locks a batch of due messages with
+ * {@code SKIP LOCKED}, so several instances can dispatch side by side, and hands the whole
+ * batch to the mail sender, which delivers it over a single SMTP connection.
+ *
+ * Messages are rendered from their template just before sending. Sent messages are deleted.
+ * A failed message is retried after an exponential backoff ({@code backoff} doubled per
+ * attempt, capped at {@code max-backoff}); after {@code max-attempts} it is marked DEAD, its
+ * parameters and body are cleared so no reset link outlives the attempt to send it, and the
+ * row is left for inspection until {@link CleanupService} purges it.
+ */
+@Service
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxRepository repository;
+    private final JavaMailSender mailSender;
+    private final EmailTemplates emailTemplates;
+    private final TransactionTemplate transactionTemplate;
+    private final String fromEmail;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+    private final Counter sent;
+    private final Counter failed;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository repository,
+                                 JavaMailSender mailSender,
+                                 EmailTemplates emailTemplates,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${spring.mail.username:noreply@crudapp.com}") String fromEmail,
+                                 @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+                                 @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${app.mail.outbox.backoff:30000}") long backoffMillis,
+                                 @Value("${app.mail.outbox.max-backoff:3600000}") long maxBackoffMillis,
+                                 MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.mailSender = mailSender;
+        this.emailTemplates = emailTemplates;
+        this.transactionTemplate = transactionTemplate;
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        Gauge.builder("mail.outbox.size", pending, AtomicLong::get).tag("status", "pending").register(meterRegistry);
+        Gauge.builder("mail.outbox.size", dead, AtomicLong::get).tag("status", "dead").register(meterRegistry);
+        this.sent = Counter.builder("mail.outbox.sends").tag("outcome", "sent").register(meterRegistry);
+        this.failed = Counter.builder("mail.outbox.sends").tag("outcome", "failed").register(meterRegistry);
+    }
+
+    /**
+     * Drains due messages batch by batch, each batch in its own transaction so that row
+     * locks are held only while that batch is being sent.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:5000}")
+    public void dispatch() {
+        try {
+            Integer handled;
+            do {
+                handled = transactionTemplate.execute(status -> dispatchBatch());
+            } while (handled != null && handled == batchSize);
+            pending.set(repository.countByStatus(EmailOutboxMessage.Status.PENDING));
+            dead.set(repository.countByStatus(EmailOutboxMessage.Status.DEAD));
+        } catch (Exception e) {
+            log.error("Error dispatching queued emails", e);
+        }
+    }
+
+    private int dispatchBatch() {
+        List<EmailOutboxMessage> batch = repository.lockNextBatch(LocalDateTime.now(), batchSize);
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+        return batch.size();
+    }
+
+    void send(List<EmailOutboxMessage> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> rows = new ArrayList<>(batch.size());
+        List<SimpleMailMessage> messages = new ArrayList<>(batch.size());
+        for (EmailOutboxMessage row : batch) {
+            String text;
+            try {
+                text = row.getBody() != null ? row.getBody() : emailTemplates.render(row.getTemplate(), row.getParameters());
+            } catch (RuntimeException e) {
+                markFailed(row, e, now);
+                failed.increment();
+                continue;
+            }
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmail);
+            message.setTo(row.getRecipient());
+            message.setSubject(row.getSubject());
+            message.setText(text);
+            rows.add(row);
+            messages.add(message);
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        Exception batchFailure = null;
+        try {
+            mailSender.send(messages.toArray(SimpleMailMessage[]::new));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            batchFailure = failures.isEmpty() ? e : null;
+        } catch (MailException e) {
+            batchFailure = e;
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            EmailOutboxMessage row = rows.get(i);
+            Exception failure = batchFailure != null ? batchFailure : failures.get(messages.get(i));
+            if (failure == null) {
+                repository.delete(row);
+                sent.increment();
+            } else {
+                markFailed(row, failure, now);
+                failed.increment();
+            }
+        }
+    }
+
+    private void markFailed(EmailOutboxMessage row, Exception failure, LocalDateTime now) {
+        int attempts = row.getAttempts() + 1;
+        row.setAttempts(attempts);
+        String error = String.valueOf(failure.getMessage());
+        row.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (attempts >= maxAttempts) {
+            row.setStatus(EmailOutboxMessage.Status.DEAD);
+            row.setParameters(null);
+            row.setBody(null);
+            log.error("Giving up on email {} to {} after {} attempts: {}", row.getId(), row.getRecipient(), attempts, error);
+        } else {
+            long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 20));
+            row.setNextAttemptAt(now.plusNanos(delay * 1_000_000));
+            log.warn("Email {} to {} failed (attempt {}), retrying in {} ms: {}",
+                    row.getId(), row.getRecipient(), attempts, delay, error);
+        }
+        repository.save(row);
+    }
+}
@@ -0,0 +1,87 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.util.SecretCipher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Texts of the application's emails. The outbox stores a template id and its parameters,
+ * not the rendered text, and the text is rendered when the email is sent. Secret parameters,
+ * such as the reset token, are stored encrypted with {@link SecretCipher}, so a reset link
+ * cannot be read from the outbox table.
+ */
+@Component
+public class EmailTemplates {
+
+    public static final String PASSWORD_RESET = "password-reset";
+    public static final String WELCOME = "welcome";
+
+    private static final TypeReference<Map<String, String>> PARAMETERS = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final SecretCipher secretCipher;
+    private final String frontendUrl;
+
+    public EmailTemplates(ObjectMapper objectMapper,
+                          SecretCipher secretCipher,
+                          @Value("${app.frontend.url:http://localhost:3000}") String frontendUrl) {
+        this.objectMapper = objectMapper;
+        this.secretCipher = secretCipher;
+        this.frontendUrl = frontendUrl;
+    }
+
+    /**
+     * Parameters of the password reset email; the token is encrypted.
+     */
+    public String passwordResetParameters(String resetToken) {
+        return toJson(Map.of("token", secretCipher.encrypt(resetToken)));
+    }
+
+    public String welcomeParameters(String firstName) {
+        return toJson(Map.of("firstName", firstName));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the template is unknown
+     * @throws IllegalStateException if the parameters cannot be read or decrypted
+     */
+    public String render(String template, String parameters) {
+        Map<String, String> values = fromJson(parameters);
+        return switch (template) {
+            case PASSWORD_RESET -> "Hello,\n\n" +
+                    "You have requested to reset your password. Please click the link below to reset your password:\n\n" +
+                    frontendUrl + "/reset-password?token=" + secretCipher.decrypt(values.get("token")) + "\n\n" +
+                    "This link will expire in 1 hour.\n\n" +
+                    "If you did not request this password reset, please ignore this email.\n\n" +
+                    "Best regards,\n" +
+                    "CRUD App Team";
+            case WELCOME -> "Hello " + values.get("firstName") + ",\n\n" +
+                    "Welcome to CRUD App! Your account has been successfully created.\n\n" +
+                    "You can now log in to your account using your email and password.\n\n" +
+                    "Best regards,\n" +
+                    "CRUD App Team";
+            default -> throw new IllegalArgumentException("Unknown email template: " + template);
+        };
+    }
+
+    private String toJson(Map<String, String> values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write email parameters", e);
+        }
+    }
+
+    private Map<String, String> fromJson(String parameters) {
+        try {
+            return objectMapper.readValue(parameters, PARAMETERS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read email parameters", e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.repository.BusinessRepository;
+import com.dasith.crud_app.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a business's products as NDJSON or CSV straight from a JDBC cursor. Rows are
+ * fetched {@code app.export.fetch-size} at a time inside a read-only transaction (which
+ * PostgreSQL needs to use a cursor) and written out as they arrive; no entities are created,
+ * so memory use does not depend on the catalog size.
+ */
+@Service
+@Slf4j
+public class ProductExportService {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + value + " (use ndjson or csv)");
+        }
+    }
+
+    private static final String SELECT_SQL =
+            "SELECT id, name, description, price, category, stock FROM products WHERE business_id = ? ORDER BY id";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BusinessRepository businessRepository;
+    private final ObjectMapper objectMapper;
+
+    public ProductExportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                BusinessRepository businessRepository,
+                                ObjectMapper objectMapper,
+                                @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.businessRepository = businessRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void checkBusinessExists(Long businessId) {
+        if (!businessRepository.existsById(businessId)) {
+            throw new RuntimeException("Business not Found with id" + businessId);
+        }
+    }
+
+    /**
+     * Writes every product of the business to {@code out}, gzip-compressed if requested.
+     * The stream is finished but not closed.
+     */
+    public void export(Long businessId, Format format, boolean gzip, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        OutputStream target = new BufferedOutputStream(compressed != null ? compressed : out, BUFFER_SIZE);
+        long[] rows = new long[1];
+        try {
+            if (format == Format.CSV) {
+                Writer writer = new OutputStreamWriter(target, StandardCharsets.UTF_8);
+                CsvWriter csv = new CsvWriter(writer);
+                csv.writeRecord("id", "name", "description", "price", "category", "stock");
+                query(businessId, rs -> {
+                    csv.writeRecord(rs.getLong("id"), rs.getString("name"), rs.getString("description"),
+                            rs.getObject("price"), rs.getString("category"), rs.getObject("stock"));
+                    rows[0]++;
+                });
+                writer.flush();
+            } else {
+                JsonGenerator json = objectMapper.getFactory().createGenerator(target);
+                json.setRootValueSeparator(null); // one object per line, separated by the '\n' below
+                query(businessId, rs -> {
+                    json.writeStartObject();
+                    json.writeNumberField("id", rs.getLong("id"));
+                    json.writeStringField("name", rs.getString("name"));
+                    json.writeStringField("description", rs.getString("description"));
+                    json.writeObjectField("price", rs.getObject("price"));
+                    json.writeStringField("category", rs.getString("category"));
+                    json.writeObjectField("stock", rs.getObject("stock"));
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    rows[0]++;
+                });
+                json.flush();
+            }
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the cursor and transaction are already closed.
+            log.debug("Product export for business {} aborted after {} rows: {}", businessId, rows[0], e.getMessage());
+            throw e.getCause();
+        }
+        target.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        log.info("Exported {} products of business {} as {} in {} ms",
+                rows[0], businessId, format, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private void query(Long businessId, RowWriter writer) {
+        readOnlyTransaction.executeWithoutResult(status ->
+                streamingJdbcTemplate.query(SELECT_SQL, rs -> {
+                    try {
+                        writer.write(rs);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, businessId));
+    }
+}
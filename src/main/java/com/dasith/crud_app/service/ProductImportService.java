@@ -0,0 +1,277 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.dto.ImportResult;
+import com.dasith.crud_app.event.CatalogChangedEvent;
+import com.dasith.crud_app.repository.BusinessRepository;
+import com.dasith.crud_app.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports products from a CSV or NDJSON stream. The body is parsed one row at a time and
+ * rows are inserted with plain JDBC batches of {@code app.import.batch-size}, each batch in
+ * its own transaction, so neither the file nor the products are ever held in memory and a
+ * bad batch only loses its own rows.
+ *
+ * Rows that fail validation are skipped and reported with their line number. An error that
+ * stops the whole import (a bad CSV header, an unterminated quote, the client going away)
+ * is reported as the last row error of a result marked incomplete; the batches committed
+ * before it stay imported, and the catalog change is published for them all the same. CSV input
+ * needs a header row naming the columns (name, description, price, category, stock; only
+ * name is required); NDJSON input has one JSON object with the same fields per line.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, description, price, category, stock, business_id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BusinessRepository businessRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    @Value("${app.import.progress-interval:100000}")
+    private long progressInterval;
+
+    public ImportResult importProducts(Long businessId, InputStream body, Format format) {
+        if (!businessRepository.existsById(businessId)) {
+            throw new RuntimeException("Business not Found with id" + businessId);
+        }
+        Import run = new Import(businessId);
+        boolean complete = false;
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            if (format == Format.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+            complete = true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Import into business {} stopped after line {}: {}", businessId, run.lastLine, e.getMessage());
+            run.stop(e.getMessage());
+        } finally {
+            try {
+                // Rows already parsed are valid whatever stopped the input
+                run.flush();
+            } finally {
+                if (run.imported > 0) {
+                    eventPublisher.publishEvent(CatalogChangedEvent.productsReplaced(businessId));
+                }
+            }
+        }
+
+        long durationMs = (System.nanoTime() - run.start) / 1_000_000;
+        log.info("Imported {} products into business {} in {} ms ({} rows rejected)",
+                run.imported, businessId, durationMs, run.failed);
+        return new ImportResult(run.imported, run.failed, run.errors, durationMs, complete);
+    }
+
+    private void readCsv(BufferedReader reader, Import run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name")) {
+            throw new IllegalArgumentException("CSV header must include a name column");
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            List<String> fields = record;
+            run.add(csv.recordLine(), column -> {
+                Integer index = columns.get(column);
+                return index != null && index < fields.size() ? fields.get(index) : null;
+            });
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Import run) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                run.reject(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            if (!node.isObject()) {
+                run.reject(lineNumber, "Expected a JSON object");
+                continue;
+            }
+            run.add(lineNumber, column -> {
+                JsonNode value = node.get(column);
+                return value == null || value.isNull() ? null : value.asText();
+            });
+        }
+    }
+
+    private interface Row {
+        String get(String column);
+    }
+
+    /**
+     * State of one import: the pending batch, counters and the reported errors.
+     */
+    private class Import {
+
+        private final Long businessId;
+        private final long start = System.nanoTime();
+        private final List<Object[]> batch = new ArrayList<>(batchSize);
+        private final List<Long> batchLines = new ArrayList<>(batchSize);
+        private final List<ImportResult.RowError> errors = new ArrayList<>();
+        private long read;
+        private long lastLine;
+        private long imported;
+        private long failed;
+
+        Import(Long businessId) {
+            this.businessId = businessId;
+        }
+
+        void add(long line, Row row) {
+            read++;
+            lastLine = line;
+            try {
+                batch.add(new Object[]{
+                        text(row.get("name"), "name", true),
+                        text(row.get("description"), "description", false),
+                        number(row.get("price"), "price"),
+                        text(row.get("category"), "category", false),
+                        integer(row.get("stock"), "stock"),
+                        businessId});
+                batchLines.add(line);
+            } catch (IllegalArgumentException e) {
+                reject(line, e.getMessage());
+            }
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+            if (read % progressInterval == 0) {
+                long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                log.info("Importing into business {}: {} rows read, {} imported, {} rejected ({} rows/s)",
+                        businessId, read, imported, failed, read * 1000 / elapsedMs);
+            }
+        }
+
+        void reject(long line, String message) {
+            lastLine = line;
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportResult.RowError(line, message));
+            }
+        }
+
+        /**
+         * Records the error that ended the input. Always reported, even past the error limit.
+         */
+        void stop(String message) {
+            errors.add(new ImportResult.RowError(lastLine + 1, "Import stopped: " + message));
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+                imported += batch.size();
+            } catch (DataAccessException e) {
+                log.warn("Import batch into business {} failed: {}", businessId, e.getMostSpecificCause().getMessage());
+                failed += batch.size() - 1;
+                reject(batchLines.get(0), "Batch of " + batch.size() + " rows starting here was not imported: "
+                        + e.getMostSpecificCause().getMessage());
+            }
+            batch.clear();
+            batchLines.clear();
+        }
+    }
+
+    private static String text(String value, String column, boolean required) {
+        if (value == null || value.isBlank()) {
+            if (required) {
+                throw new IllegalArgumentException(column + " is required");
+            }
+            return null;
+        }
+        if (value.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException(column + " is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private static Double number(String value, String column) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            double number = Double.parseDouble(value.trim());
+            if (!Double.isFinite(number)) {
+                throw new NumberFormatException();
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    private static Integer integer(String value, String column) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+    }
+}
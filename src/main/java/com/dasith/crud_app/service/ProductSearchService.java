@@ -0,0 +1,141 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.dto.ProductSearchResult;
+import com.dasith.crud_app.dto.ProductView;
+import com.dasith.crud_app.util.PageCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Product search within a business: text match on name and description, category, price
+ * range and in-stock filters, keyset pagination in id order and category facet counts.
+ *
+ * On PostgreSQL the text match is a full-text query served by the GIN index from the
+ * V2 migration; the tsvector expression below must match that index. Other databases
+ * (H2 in tests) fall back to a case-insensitive LIKE.
+ */
+@Service
+@Slf4j
+public class ProductSearchService {
+
+    private static final String FULL_TEXT_MATCH =
+            "to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, '')) @@ plainto_tsquery('simple', :q)";
+    private static final String LIKE_MATCH =
+            "(LOWER(name) LIKE :like ESCAPE '\\' OR LOWER(description) LIKE :like ESCAPE '\\')";
+    private static final RowMapper<ProductView> PRODUCT_VIEW = (rs, rowNum) -> new ProductView(
+            rs.getLong("id"),
+            rs.getLong("business_id"),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getObject("price", Double.class),
+            rs.getString("category"),
+            rs.getObject("stock", Integer.class));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean fullText;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int facetLimit;
+
+    public ProductSearchService(NamedParameterJdbcTemplate jdbcTemplate,
+                                DataSource dataSource,
+                                @Value("${app.pagination.default-size:50}") int defaultPageSize,
+                                @Value("${app.pagination.max-size:200}") int maxPageSize,
+                                @Value("${app.search.facet-limit:50}") int facetLimit) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fullText = isPostgres(dataSource);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.facetLimit = facetLimit;
+    }
+
+    public ProductSearchResult search(Long businessId, String query, String category, Double minPrice, Double maxPrice,
+                                      boolean inStock, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        long afterId = cursor == null || cursor.isBlank() ? 0L : PageCursor.decode(cursor, "id").id();
+
+        MapSqlParameterSource params = new MapSqlParameterSource("businessId", businessId);
+        // Every filter except category; the facet counts are taken over this set.
+        StringBuilder filters = new StringBuilder("business_id = :businessId");
+        if (query != null && !query.isBlank()) {
+            if (fullText) {
+                filters.append(" AND ").append(FULL_TEXT_MATCH);
+                params.addValue("q", query.trim());
+            } else {
+                filters.append(" AND ").append(LIKE_MATCH);
+                params.addValue("like", "%" + escapeLike(query.trim().toLowerCase(Locale.ROOT)) + "%");
+            }
+        }
+        if (minPrice != null) {
+            filters.append(" AND price >= :minPrice");
+            params.addValue("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            filters.append(" AND price <= :maxPrice");
+            params.addValue("maxPrice", maxPrice);
+        }
+        if (inStock) {
+            filters.append(" AND stock > 0");
+        }
+
+        StringBuilder pageSql = new StringBuilder("SELECT id, business_id, name, description, price, category, stock FROM products WHERE ")
+                .append(filters);
+        if (category != null && !category.isBlank()) {
+            pageSql.append(" AND category = :category");
+            params.addValue("category", category);
+        }
+        pageSql.append(" AND id > :afterId ORDER BY id LIMIT :limit");
+        params.addValue("afterId", afterId);
+        params.addValue("limit", pageSize + 1);
+
+        List<ProductView> rows = jdbcTemplate.query(pageSql.toString(), params, PRODUCT_VIEW);
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = new PageCursor("id", null, rows.get(pageSize - 1).getId()).encode();
+        }
+
+        Map<String, Long> categoryCounts = afterId == 0L ? categoryCounts(filters.toString(), params) : null;
+        return new ProductSearchResult(List.copyOf(rows), nextCursor, categoryCounts);
+    }
+
+    private Map<String, Long> categoryCounts(String filters, MapSqlParameterSource params) {
+        params.addValue("facetLimit", facetLimit);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT category, COUNT(*) AS matches FROM products WHERE " + filters
+                        + " GROUP BY category ORDER BY matches DESC, category LIMIT :facetLimit",
+                params,
+                rs -> {
+                    String category = rs.getString("category");
+                    counts.put(category != null ? category : "", rs.getLong("matches"));
+                });
+        return counts;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equalsIgnoreCase(product);
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not determine the database, product search falls back to LIKE: {}", e.getMessage());
+            return false;
+        }
+    }
+}
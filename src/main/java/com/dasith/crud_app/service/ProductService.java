@@ -1,14 +1,24 @@
 package com.dasith.crud_app.service;
 
+import com.dasith.crud_app.dto.CursorPage;
+import com.dasith.crud_app.event.CatalogChangedEvent;
 import com.dasith.crud_app.model.Business;
 import com.dasith.crud_app.model.Product;
 import com.dasith.crud_app.repository.BusinessRepository;
 import com.dasith.crud_app.repository.ProductRepository;
+import com.dasith.crud_app.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 public class ProductService {
@@ -18,8 +28,99 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.bulk.delete-batch-size:5000}")
+    private int deleteBatchSize;
+
+    @Value("${app.pagination.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${app.pagination.unpaged-limit:1000}")
+    private int unpagedLimit;
+
+    // Unpaged listing, capped at app.pagination.unpaged-limit; larger catalogs must use getProductsPage.
     public List<Product> getProductsByBusinessId(Long businessId){
-        return productRepository.findByBusinessId(businessId);
+        return getProductsByBusinessId(businessId, unpagedLimit);
+    }
+
+    public int getUnpagedLimit() {
+        return unpagedLimit;
+    }
+
+    // First `limit` products of a business in id order, for callers that cannot hold a whole catalog.
+    public List<Product> getProductsByBusinessId(Long businessId, int limit) {
+        return productRepository.findByBusinessIdOrderByIdAsc(businessId, Limit.of(limit));
+    }
+
+    /**
+     * Keyset page of a business's products, sorted by id, price or name (nulls last, id as the
+     * tie breaker). Pass the previous page's cursor to continue; size is capped at
+     * app.pagination.max-size.
+     *
+     * Price and name pages have two phases: a seek over the non-null values, then the rows
+     * whose value is null, by id. A cursor whose last row had a null value continues in the
+     * second phase; a page that exhausts the first phase is topped up from the second.
+     */
+    public CursorPage<Product> getProductsPage(Long businessId, String cursor, Integer size, String sort) {
+        String sortKey = sort == null ? "id" : sort.toLowerCase(Locale.ROOT);
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor, sortKey);
+        long afterId = after != null ? after.id() : 0L;
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<Product> products = switch (sortKey) {
+            case "id" -> productRepository.findByBusinessIdAndIdGreaterThanOrderByIdAsc(businessId, afterId, limit);
+            case "price" -> after != null && after.value() == null
+                    ? productRepository.findPageByNullPrice(businessId, afterId, limit)
+                    : thenNulls(productRepository.findPageByPrice(businessId,
+                                    after != null ? parsePrice(after.value()) : Double.NEGATIVE_INFINITY, afterId, limit),
+                            pageSize + 1, rest -> productRepository.findPageByNullPrice(businessId, 0L, rest));
+            case "name" -> after != null && after.value() == null
+                    ? productRepository.findPageByNullName(businessId, afterId, limit)
+                    : thenNulls(productRepository.findPageByName(businessId, after != null ? after.value() : "", afterId, limit),
+                            pageSize + 1, rest -> productRepository.findPageByNullName(businessId, 0L, rest));
+            default -> throw new IllegalArgumentException("Unsupported sort: " + sort + " (use id, price or name)");
+        };
+
+        if (products.size() <= pageSize) {
+            return new CursorPage<>(products, null);
+        }
+        List<Product> page = products.subList(0, pageSize);
+        Product last = page.get(pageSize - 1);
+        String value = switch (sortKey) {
+            case "price" -> last.getPrice() != null ? last.getPrice().toString() : null;
+            case "name" -> last.getName();
+            default -> null;
+        };
+        return new CursorPage<>(List.copyOf(page), new PageCursor(sortKey, value, last.getId()).encode());
+    }
+
+    /**
+     * Tops up a page of non-null values with the first null-valued rows when the values ran out.
+     */
+    private static List<Product> thenNulls(List<Product> values, int wanted, Function<Limit, List<Product>> nulls) {
+        if (values.size() >= wanted) {
+            return values;
+        }
+        List<Product> rows = new ArrayList<>(values);
+        rows.addAll(nulls.apply(Limit.of(wanted - values.size())));
+        return rows;
+    }
+
+    private static double parsePrice(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
     }
 
     public List<Product> getAllProducts() {
@@ -39,7 +140,9 @@ public class ProductService {
         product.setBusiness(business);
 
         // The repository handles saving and updating the relationship.
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(CatalogChangedEvent.productSaved(businessId, savedProduct));
+        return savedProduct;
     }
 
     public Product updateProduct(Long id, Product productDetails) {
@@ -52,13 +155,37 @@ public class ProductService {
         product.setCategory(productDetails.getCategory());
         product.setStock(productDetails.getStock());
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(CatalogChangedEvent.productSaved(
+                savedProduct.getBusiness().getId(), savedProduct));
+        return savedProduct;
     }
 
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        // Look the product up first so that we know which business's derived data to drop.
+        productRepository.findById(id).ifPresent(product -> {
+            productRepository.delete(product);
+            eventPublisher.publishEvent(CatalogChangedEvent.productDeleted(
+                    product.getBusiness().getId(), id));
+        });
     }
     public void deleteProductByBusinessId(Long businessId){
-        productRepository.deleteProductByBusinessId(businessId);
+        deleteProductsInBatches(businessId);
+        eventPublisher.publishEvent(CatalogChangedEvent.productsReplaced(businessId));
+    }
+
+    /**
+     * Deletes every product of the business with set-based deletes of app.bulk.delete-batch-size
+     * rows, each in its own short transaction, so a large catalog never holds locks for long.
+     * Returns the number of products deleted.
+     */
+    public long deleteProductsInBatches(Long businessId) {
+        long deleted = 0;
+        Integer batch;
+        do {
+            batch = transactionTemplate.execute(status -> productRepository.deleteBatchByBusinessId(businessId, deleteBatchSize));
+            deleted += batch != null ? batch : 0;
+        } while (batch != null && batch == deleteBatchSize);
+        return deleted;
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.repository.RevokedTokenRepository;
+import com.dasith.crud_app.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Deny-list of revoked JWTs by token id, stored in {@code revoked_tokens} and fronted by an
+ * in-memory Bloom filter: a token id the filter has never seen is not revoked, so the
+ * common case is answered without a query. Only filter hits are confirmed in the database.
+ *
+ * Revocations made by other instances reach the filter through a short sync that reads the
+ * rows revoked since the previous one. Each sync reaches back by an overlap, so a row whose
+ * transaction commits late, or whose instance clock lags, is still picked up; the same
+ * overlap covers revocations that race a full rebuild. The full rebuild runs less often and
+ * drops expired ids. Until the first build completes every check goes to the database.
+ *
+ * Refresh tokens never rely on the filter: rotating one is {@link #revoke}, which inserts
+ * into the table and so sees every revocation already committed by any instance.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate ownTransaction;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final Duration syncOverlap;
+    private volatile BloomFilter bloomFilter;
+    // Filter under construction; revocations made during a rebuild go into both.
+    private volatile BloomFilter rebuilding;
+    // Time the filter was last brought up to date with the table.
+    private LocalDateTime syncedAt;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${jwt.revocation.bloom.expected-insertions:100000}") long expectedInsertions,
+                                  @Value("${jwt.revocation.bloom.false-positive-probability:0.01}") double falsePositiveProbability,
+                                  @Value("${jwt.revocation.bloom.sync-overlap:60000}") long syncOverlapMillis) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        // The insert runs on its own: a duplicate key aborts the whole transaction on
+        // PostgreSQL, and the caller's transaction must survive it
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.syncOverlap = Duration.ofMillis(syncOverlapMillis);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        BloomFilter filter = bloomFilter;
+        if (filter != null && !filter.mightContain(tokenId)) {
+            return false;
+        }
+        return revokedTokenRepository.existsById(tokenId);
+    }
+
+    /**
+     * Revokes the token. Returns false if it was already revoked, by this or any other
+     * instance, which for a refresh token means it is being used a second time.
+     */
+    public boolean revoke(String tokenId, String email, Instant expiresAt) {
+        boolean inserted;
+        try {
+            inserted = Boolean.TRUE.equals(ownTransaction.execute(status -> {
+                if (revokedTokenRepository.existsById(tokenId)) {
+                    return false;
+                }
+                revokedTokenRepository.insert(
+                        tokenId, email, LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()), LocalDateTime.now());
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Revoked concurrently between the check and the insert
+            inserted = false;
+        }
+        put(tokenId);
+        return inserted;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.revocation.bloom.rebuild-interval:300000}",
+            initialDelayString = "${jwt.revocation.bloom.rebuild-interval:300000}")
+    public synchronized void rebuild() {
+        try {
+            BloomFilter filter = new BloomFilter(
+                    Math.max(expectedInsertions, revokedTokenRepository.count() * 2), falsePositiveProbability);
+            rebuilding = filter;
+            LocalDateTime now = LocalDateTime.now();
+            List<String> activeIds = revokedTokenRepository.findActiveIds(now);
+            activeIds.forEach(filter::put);
+            bloomFilter = filter;
+            syncedAt = now;
+            log.debug("Rebuilt revoked token filter with {} ids", activeIds.size());
+        } catch (Exception e) {
+            log.error("Error rebuilding revoked token filter", e);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    /**
+     * Adds the ids revoked since the last sync or rebuild, less the overlap, to the filter.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.bloom.sync-interval:5000}",
+            initialDelayString = "${jwt.revocation.bloom.sync-interval:5000}")
+    public synchronized void sync() {
+        if (bloomFilter == null) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> ids = revokedTokenRepository.findActiveIdsRevokedSince(syncedAt.minus(syncOverlap), now);
+            ids.forEach(this::put);
+            syncedAt = now;
+        } catch (Exception e) {
+            log.error("Error syncing revoked token filter", e);
+        }
+    }
+
+    private void put(String tokenId) {
+        for (BloomFilter filter : new BloomFilter[]{bloomFilter, rebuilding}) {
+            if (filter != null) {
+                filter.put(tokenId);
+            }
+        }
+    }
+}
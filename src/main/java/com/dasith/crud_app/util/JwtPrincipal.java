@@ -0,0 +1,33 @@
+package com.dasith.crud_app.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The verified content of a token: who it was issued to, with which role, and when.
+ * {@code tokenId} and {@code type} are null for tokens issued before they were introduced.
+ */
+public record JwtPrincipal(String email, String role, String tokenId, String type, Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    public boolean isRefreshToken() {
+        return JwtUtil.REFRESH_TOKEN_TYPE.equals(type);
+    }
+
+    /**
+     * True when the token was issued before the user's last password change or reset.
+     */
+    public boolean issuedBefore(LocalDateTime credentialsChangedAt) {
+        if (credentialsChangedAt == null || issuedAt == null) {
+            return false;
+        }
+        // iat has second precision
+        return issuedAt.isBefore(credentialsChangedAt.atZone(ZoneId.systemDefault()).toInstant()
+                .truncatedTo(ChronoUnit.SECONDS));
+    }
+}
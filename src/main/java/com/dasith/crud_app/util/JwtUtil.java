@@ -1,23 +1,75 @@
 package com.dasith.crud_app.util;
 
+import com.dasith.crud_app.model.JwtSigningKey;
+import com.dasith.crud_app.repository.JwtSigningKeyRepository;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 
+/**
+ * Issues and verifies JWTs. The signing key and parser are built once at startup.
+ *
+ * {@link #parseAndVerify} is the request-path entry point: one parse and signature check
+ * per token, with the result kept in a small LRU cache keyed by the SHA-256 of the token, so
+ * repeat requests with the same token skip the HMAC and JSON work. Cached entries are never
+ * returned past the token's expiry.
+ *
+ * Signing keys are independent random keys, not derived from any one secret. By default they
+ * live in the {@code jwt_signing_keys} table: the key of rotation epoch n (kid {@code "k<n>"})
+ * is generated by whichever instance first needs it, one full epoch before it starts signing,
+ * so every instance already knows a key by the time any instance signs with it. The current
+ * key signs; older keys verify until the last token they signed has expired, and are then
+ * deleted. Alternatively {@code jwt.keys} configures a fixed list of {@code kid:base64} keys,
+ * the last of which signs; rotating then means appending a key and dropping the oldest later.
+ * The key set is rebuilt off the request path into an immutable map, so verification is a
+ * single map lookup by the token's {@code kid}.
+ *
+ * Tokens without a kid, signed with the plain {@code jwt.secret} before rotation was
+ * introduced, are rejected unless {@code jwt.accept-legacy-tokens} is set for the migration.
+ */
 @Component
+@Slf4j
 public class JwtUtil {
 
+    public static final String ACCESS_TOKEN_TYPE = "access";
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+    private static final String TYPE_CLAIM = "typ";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private record KeySet(long epoch, String signingKid, SecretKey signingKey, Map<String, SecretKey> verificationKeys) {}
+
     @Value("${jwt.secret:myDefaultSecretKeyThatIsAtLeast256BitsLongForHMACAlgorithm}")
     private String secret;
 
@@ -27,16 +79,120 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration}") // 7 days in milliseconds
     private Long refreshExpiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    @Value("${jwt.key-rotation.interval:86400000}") // 1 day in milliseconds
+    private long keyRotationInterval = 86_400_000L;
+
+    // Comma-separated kid:base64 keys, newest last; empty to use the persisted key set
+    @Value("${jwt.keys:}")
+    private String configuredKeys = "";
+
+    @Value("${jwt.accept-legacy-tokens:false}")
+    private boolean acceptLegacyTokens;
+
+    @Autowired
+    private JwtSigningKeyRepository keyRepository;
+
+    @Autowired
+    private SecretCipher secretCipher;
+
+    private SecretKey legacyKey;
+    private volatile KeySet keys;
+    private JwtParser parser;
+    private Map<String, JwtPrincipal> verified;
+    private final LongAdder verifiedCacheHits = new LongAdder();
+    private final LongAdder verifiedCacheMisses = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        if (acceptLegacyTokens) {
+            legacyKey = Keys.hmacShaKeyFor(secret.getBytes());
+            log.warn("Accepting JWTs without a key id, signed with jwt.secret; turn jwt.accept-legacy-tokens "
+                    + "off once the refresh token lifetime has passed");
+        }
+        keys = configuredKeys.isBlank() ? loadKeySet(currentEpoch()) : configuredKeySet();
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        return verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+        verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+                return size() > verifiedCacheMaxEntries;
+            }
+        };
+    }
+
+    /**
+     * Switches to the next signing key once its epoch starts. Configured keys change only
+     * with the configuration.
+     */
+    @Scheduled(fixedDelayString = "${jwt.key-rotation.check-interval:60000}")
+    public void rotateKeys() {
+        long epoch = currentEpoch();
+        if (configuredKeys.isBlank() && epoch != keys.epoch()) {
+            keys = loadKeySet(epoch);
+            log.info("Rotated JWT signing key to {}", keys.signingKid());
+        }
+    }
+
+    /**
+     * Verifies the token and returns its principal.
+     *
+     * @throws JwtException if the token is malformed, wrongly signed or expired
+     */
+    public JwtPrincipal parseAndVerify(String token) {
+        String cacheKey = sha256(token);
+        Instant now = Instant.now();
+        synchronized (verified) {
+            JwtPrincipal cached = verified.get(cacheKey);
+            if (cached != null) {
+                if (!cached.isExpired(now)) {
+                    verifiedCacheHits.increment();
+                    return cached;
+                }
+                verified.remove(cacheKey);
+            }
+        }
+
+        verifiedCacheMisses.increment();
+        Claims claims = extractAllClaims(token);
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token has no expiration");
+        }
+        JwtPrincipal principal = new JwtPrincipal(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getId(),
+                claims.get(TYPE_CLAIM, String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant());
+        synchronized (verified) {
+            verified.put(cacheKey, principal);
+        }
+        return principal;
+    }
+
+    public long verifiedCacheHits() {
+        return verifiedCacheHits.sum();
+    }
+
+    public long verifiedCacheMisses() {
+        return verifiedCacheMisses.sum();
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseAndVerify(token).email();
     }
 
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        return parseAndVerify(token).role();
     }
 
     public Date extractExpiration(String token) {
@@ -49,11 +205,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     private Boolean isTokenExpired(String token) {
@@ -68,6 +220,7 @@ public class JwtUtil {
                 .map(grantedAuthority -> grantedAuthority.getAuthority().replace("ROLE_", ""))
                 .orElse("USER");
         claims.put("role", role);
+        claims.put(TYPE_CLAIM, ACCESS_TOKEN_TYPE);
         return createToken(claims, userDetails.getUsername(), jwtExpiration);
     }
 
@@ -79,16 +232,20 @@ public class JwtUtil {
                 .map(grantedAuthority -> grantedAuthority.getAuthority().replace("ROLE_", ""))
                 .orElse("USER");
         claims.put("role", role);
+        claims.put(TYPE_CLAIM, REFRESH_TOKEN_TYPE);
         return createToken(claims, userDetails.getUsername(), refreshExpiration);
     }
 
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
+        KeySet current = keys;
         return Jwts.builder()
+                .header().keyId(current.signingKid()).and()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(current.signingKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -99,13 +256,88 @@ public class JwtUtil {
 
     public Boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            parseAndVerify(token);
             return true;
         } catch (Exception e) {
             return false;
         }
     }
+
+    private Key verificationKey(String kid) {
+        if (kid == null) {
+            if (legacyKey == null) {
+                throw new JwtException("Token has no key id");
+            }
+            return legacyKey;
+        }
+        SecretKey key = keys.verificationKeys().get(kid);
+        if (key == null) {
+            throw new JwtException("Unknown signing key id");
+        }
+        return key;
+    }
+
+    private long currentEpoch() {
+        return System.currentTimeMillis() / keyRotationInterval;
+    }
+
+    /**
+     * Makes sure the keys of this epoch and the next exist, then loads every key that may still
+     * verify a token. Concurrent instances race on the insert; all of them read back the winner.
+     * Key material is stored encrypted with {@link SecretCipher}, so reading the table is not
+     * enough to mint tokens.
+     */
+    private KeySet loadKeySet(long epoch) {
+        for (long e = epoch; e <= epoch + 1; e++) {
+            byte[] material = new byte[32];
+            RANDOM.nextBytes(material);
+            keyRepository.insertIfAbsent(kid(e), secretCipher.encrypt(Base64.getEncoder().encodeToString(material)),
+                    toLocalDateTime(e * keyRotationInterval),
+                    toLocalDateTime((e + 1) * keyRotationInterval + refreshExpiration));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        keyRepository.deleteRetired(now);
+
+        Map<String, SecretKey> verificationKeys = new HashMap<>();
+        for (JwtSigningKey key : keyRepository.findByVerifyUntilAfter(now)) {
+            verificationKeys.put(key.getKid(),
+                    Keys.hmacShaKeyFor(Base64.getDecoder().decode(secretCipher.decrypt(key.getKeyMaterial()))));
+        }
+        SecretKey signingKey = verificationKeys.get(kid(epoch));
+        if (signingKey == null) {
+            throw new IllegalStateException("JWT signing key " + kid(epoch) + " is missing");
+        }
+        return new KeySet(epoch, kid(epoch), signingKey, Map.copyOf(verificationKeys));
+    }
+
+    private KeySet configuredKeySet() {
+        Map<String, SecretKey> verificationKeys = new HashMap<>();
+        String signingKid = null;
+        for (String entry : configuredKeys.split(",")) {
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2 || parts[0].isBlank()) {
+                throw new IllegalStateException("jwt.keys entries must be kid:base64");
+            }
+            signingKid = parts[0];
+            verificationKeys.put(signingKid, Keys.hmacShaKeyFor(Base64.getDecoder().decode(parts[1])));
+        }
+        return new KeySet(-1, signingKid, verificationKeys.get(signingKid), Map.copyOf(verificationKeys));
+    }
+
+    private static String kid(long epoch) {
+        return "k" + epoch;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
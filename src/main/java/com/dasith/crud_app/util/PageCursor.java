@@ -0,0 +1,39 @@
+package com.dasith.crud_app.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a keyset page: the sort key, that row's sort value (null
+ * when the column was null) and its id as the tie breaker. Clients get it as an opaque
+ * Base64 string and pass it back unchanged to fetch the next page.
+ */
+public record PageCursor(String sort, String value, long id) {
+
+    private static final char SEPARATOR = '\n';
+
+    public String encode() {
+        String raw = sort + SEPARATOR + id + SEPARATOR + (value == null ? "" : "v" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    public static PageCursor decode(String cursor, String expectedSort) {
+        PageCursor decoded;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int second = raw.indexOf(SEPARATOR, first + 1);
+            String value = second + 1 < raw.length() ? raw.substring(second + 2) : null;
+            decoded = new PageCursor(raw.substring(0, first), value, Long.parseLong(raw.substring(first + 1, second)));
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        if (!decoded.sort().equals(expectedSort)) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+        return decoded;
+    }
+}
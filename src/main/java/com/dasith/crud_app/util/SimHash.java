@@ -0,0 +1,60 @@
+package com.dasith.crud_app.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 64-bit SimHash over a list of terms, using unigrams and adjacent bigrams as features.
+ * Texts that share most of their features end up a small Hamming distance apart, which
+ * makes near-duplicate detection a single XOR and bit count per comparison.
+ */
+public final class SimHash {
+
+    private SimHash() {
+    }
+
+    public static long of(List<String> terms) {
+        int[] weights = new int[64];
+        for (int i = 0; i < terms.size(); i++) {
+            add(weights, hash(terms.get(i)));
+            if (i + 1 < terms.size()) {
+                add(weights, hash(terms.get(i) + ' ' + terms.get(i + 1)));
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Fraction of equal bits, from 0.0 (complementary) to 1.0 (identical).
+     */
+    public static double similarity(long a, long b) {
+        return 1.0 - Long.bitCount(a ^ b) / 64.0;
+    }
+
+    private static void add(int[] weights, long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((hash >>> bit) & 1L) == 1L ? 1 : -1;
+        }
+    }
+
+    private static long hash(String feature) {
+        // FNV-1a followed by a 64-bit finalizer so that similar strings spread over all bits.
+        long h = 0xcbf29ce484222325L;
+        for (byte b : feature.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,74 @@
+package com.dasith.crud_app.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Small, dependency-free text analysis shared by the AI prompt pipeline: lower-casing,
+ * splitting on anything that is not a letter or digit, stop-word removal and a very light
+ * plural stemmer. It is meant for short English prompts and product text, not general NLP.
+ */
+public final class TextNormalizer {
+
+    public static final Set<String> STOP_WORDS = Set.of(
+            "a", "about", "an", "and", "any", "are", "as", "at", "be", "by", "can", "could", "do", "does",
+            "for", "from", "get", "give", "have", "has", "hello", "hi", "how", "i", "im", "in", "is", "it",
+            "its", "like", "me", "my", "need", "of", "on", "or", "our", "please", "show", "some", "tell",
+            "that", "the", "there", "these", "this", "those", "to", "us", "want", "was", "we", "were",
+            "what", "whats", "which", "who", "with", "would", "you", "your", "youre");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Lower-cased words of the text, with apostrophes removed so "what's" and "whats" agree.
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String folded = text.toLowerCase(Locale.ROOT).replace("'", "").replace("\u2019", "");
+        for (String word : folded.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Content terms of the text: words without stop words, reduced to a singular-ish stem.
+     */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String word : words(text)) {
+            if (!STOP_WORDS.contains(word)) {
+                terms.add(stem(word));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Canonical form of a prompt for cache lookups: content terms joined by single spaces, so
+     * "What's your cheapest shoe?" and "whats your cheapest shoes" map to the same key. Falls
+     * back to all words when the prompt is made of stop words only.
+     */
+    public static String normalizeKey(String text) {
+        List<String> terms = terms(text);
+        return String.join(" ", terms.isEmpty() ? words(text) : terms);
+    }
+
+    static String stem(String word) {
+        if (word.length() > 4 && word.endsWith("ies")) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+}
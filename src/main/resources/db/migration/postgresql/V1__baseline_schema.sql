@@ -0,0 +1,98 @@
+-- Baseline of the schema previously maintained by spring.jpa.hibernate.ddl-auto=update.
+-- Written to be a no-op on databases that already have it: tables are created only when
+-- missing, and columns added to the original tables over time are added only when missing.
+
+CREATE TABLE IF NOT EXISTS users (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email                   VARCHAR(255) NOT NULL UNIQUE,
+    password                VARCHAR(255) NOT NULL,
+    first_name              VARCHAR(255) NOT NULL,
+    last_name               VARCHAR(255) NOT NULL,
+    role                    VARCHAR(255) NOT NULL CHECK (role IN ('USER', 'ADMIN')),
+    enabled                 BOOLEAN NOT NULL,
+    account_non_expired     BOOLEAN NOT NULL,
+    account_non_locked      BOOLEAN NOT NULL,
+    credentials_non_expired BOOLEAN NOT NULL,
+    created_at              TIMESTAMP(6),
+    updated_at              TIMESTAMP(6)
+);
+ALTER TABLE users ADD COLUMN IF NOT EXISTS credentials_changed_at TIMESTAMP(6);
+
+CREATE TABLE IF NOT EXISTS businesses (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255),
+    type        VARCHAR(255),
+    industry    VARCHAR(255),
+    description VARCHAR(255),
+    user_id     BIGINT REFERENCES users (id)
+);
+CREATE INDEX IF NOT EXISTS idx_businesses_user_id_id ON businesses (user_id, id);
+
+CREATE TABLE IF NOT EXISTS products (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255),
+    description VARCHAR(255),
+    price       DOUBLE PRECISION,
+    category    VARCHAR(255),
+    stock       INTEGER,
+    business_id BIGINT REFERENCES businesses (id)
+);
+CREATE INDEX IF NOT EXISTS idx_products_business_id_id ON products (business_id, id);
+CREATE INDEX IF NOT EXISTS idx_products_business_id_price_id ON products (business_id, price, id);
+CREATE INDEX IF NOT EXISTS idx_products_business_id_name_id ON products (business_id, name, id);
+
+CREATE TABLE IF NOT EXISTS ai_agents (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    agent_name        VARCHAR(255),
+    agent_personality VARCHAR(255),
+    business_id       BIGINT UNIQUE REFERENCES businesses (id)
+);
+ALTER TABLE ai_agents ADD COLUMN IF NOT EXISTS model_name VARCHAR(255);
+ALTER TABLE ai_agents ADD COLUMN IF NOT EXISTS timeout_ms BIGINT;
+ALTER TABLE ai_agents ADD COLUMN IF NOT EXISTS max_retries INTEGER;
+
+CREATE TABLE IF NOT EXISTS ai_response_cache (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    business_id     BIGINT NOT NULL,
+    prompt_hash     VARCHAR(64) NOT NULL,
+    prompt_key      TEXT NOT NULL,
+    response        TEXT NOT NULL,
+    context_version BIGINT NOT NULL,
+    hit_count       BIGINT NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    expires_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_ai_response_cache_key UNIQUE (business_id, prompt_hash)
+);
+CREATE INDEX IF NOT EXISTS idx_ai_response_cache_expires_at ON ai_response_cache (expires_at);
+
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti        VARCHAR(36) PRIMARY KEY,
+    email      VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    revoked_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+
+CREATE TABLE IF NOT EXISTS password_reset_tokens (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL,
+    user_id    BIGINT NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_password_reset_tokens_token_hash ON password_reset_tokens (token_hash);
+CREATE INDEX IF NOT EXISTS idx_password_reset_tokens_user_id ON password_reset_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_password_reset_tokens_expires_at ON password_reset_tokens (expires_at);
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    recipient       VARCHAR(255) NOT NULL,
+    subject         VARCHAR(255) NOT NULL,
+    body            TEXT NOT NULL,
+    status          VARCHAR(16) NOT NULL CHECK (status IN ('PENDING', 'DEAD')),
+    attempts        INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_next_attempt ON email_outbox (status, next_attempt_at);
@@ -0,0 +1,13 @@
+-- Indexes behind GET /api/businesse/{businessId}/products/search. Built CONCURRENTLY so that
+-- existing catalogs stay writable; Flyway runs this script outside a transaction.
+
+-- Full-text match on name and description. The expression must stay identical to the one
+-- in ProductSearchService for the planner to use this index.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_search_text ON products
+    USING GIN (to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, '')));
+
+-- Category filter and category facet counts within a business.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_business_id_category ON products (business_id, category);
+
+-- In-stock filter: only rows with stock > 0, in id order for keyset pages.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_business_id_in_stock ON products (business_id, id) WHERE stock > 0;
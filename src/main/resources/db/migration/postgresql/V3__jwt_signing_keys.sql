@@ -0,0 +1,9 @@
+-- JWT signing keys, generated at random and shared by all instances (see JwtUtil).
+
+CREATE TABLE IF NOT EXISTS jwt_signing_keys (
+    kid          VARCHAR(32) PRIMARY KEY,
+    key_material VARCHAR(88) NOT NULL,
+    active_from  TIMESTAMP(6) NOT NULL,
+    verify_until TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_jwt_signing_keys_verify_until ON jwt_signing_keys (verify_until);
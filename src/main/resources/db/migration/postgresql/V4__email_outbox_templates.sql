@@ -0,0 +1,9 @@
+-- Queued emails store a template id and parameters, rendered at send time, instead of the
+-- rendered text; body stays for rows queued before this change.
+
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS template VARCHAR(64);
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS parameters TEXT;
+ALTER TABLE email_outbox ALTER COLUMN body DROP NOT NULL;
+
+-- Dead-lettered rows no longer keep their content.
+UPDATE email_outbox SET body = NULL WHERE status = 'DEAD';
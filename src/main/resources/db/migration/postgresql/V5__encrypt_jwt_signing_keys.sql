@@ -0,0 +1,5 @@
+-- Signing keys are now stored encrypted (see JwtUtil). Keys written in plain base64 have been
+-- readable by anyone with access to the table, so they are dropped rather than re-encrypted;
+-- instances generate new ones on startup and tokens signed with the old keys stop verifying.
+
+DELETE FROM jwt_signing_keys;
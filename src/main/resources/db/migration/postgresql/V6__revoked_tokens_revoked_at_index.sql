@@ -0,0 +1,2 @@
+-- TokenRevocationService polls for revocations newer than its last sync.
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
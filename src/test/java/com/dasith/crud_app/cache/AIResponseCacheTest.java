@@ -0,0 +1,115 @@
+package com.dasith.crud_app.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * W-TinyLFU admission, size bounds, expiry and invalidation of the response cache. With 100
+ * entries the window holds one entry and the main space 99.
+ */
+class AIResponseCacheTest {
+
+    private static final int MAX_ENTRIES = 100;
+
+    @Test
+    void scanOfOneOffQuestionsDoesNotEvictPopularAnswers() {
+        AIResponseCache cache = cache(Long.MAX_VALUE, 60_000);
+        fillWithPopularAnswers(cache);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(key(1L, "scan " + i), "scan " + i, "answer");
+        }
+
+        assertEquals(MAX_ENTRIES, cache.size());
+        for (int i = 0; i < MAX_ENTRIES - 1; i++) {
+            assertNotNull(cache.get(key(1L, "popular " + i), "popular " + i), "popular " + i);
+        }
+        for (int i = 0; i < 9; i++) {
+            assertNull(cache.get(key(1L, "scan " + i), "scan " + i), "scan " + i);
+        }
+        // The newest one-off entry is still in the window
+        assertNotNull(cache.get(key(1L, "scan 9"), "scan 9"));
+    }
+
+    @Test
+    void frequentlyRequestedNewcomerIsAdmitted() {
+        AIResponseCache cache = cache(Long.MAX_VALUE, 60_000);
+        fillWithPopularAnswers(cache);
+        cache.put(key(1L, "filler"), "filler", "answer");
+
+        AIResponseCache.Key hot = key(1L, "hot question");
+        for (int i = 0; i < 15; i++) {
+            assertNull(cache.get(hot, "hot question"));
+        }
+        cache.put(hot, "hot question", "answer");
+        // Pushes the hot entry out of the window and into the full main space
+        cache.put(key(1L, "next"), "next", "answer");
+
+        assertEquals(MAX_ENTRIES, cache.size());
+        assertNotNull(cache.get(hot, "hot question"));
+    }
+
+    @Test
+    void byteBoundEvictsBeforeTheEntryBound() {
+        // Each entry weighs 2 * (2 * 5 + 6) + 128 = 160 bytes
+        AIResponseCache cache = cache(3 * 160, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            cache.put(key(1L, "key " + i), "key " + i, "answer");
+        }
+
+        assertEquals(3, cache.size());
+        assertEquals(3 * 160, cache.weightedBytes());
+    }
+
+    @Test
+    void expiredAnswersAreNotServed() {
+        AIResponseCache cache = cache(Long.MAX_VALUE, 0);
+        cache.put(key(1L, "opening hours"), "opening hours", "answer");
+
+        assertNull(cache.get(key(1L, "opening hours"), "opening hours"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weightedBytes());
+    }
+
+    @Test
+    void invalidationDropsOnlyThatBusiness() {
+        AIResponseCache cache = cache(Long.MAX_VALUE, 60_000);
+        cache.put(key(1L, "opening hours"), "opening hours", "one");
+        cache.put(key(1L, "delivery"), "delivery", "one");
+        cache.put(key(2L, "opening hours"), "opening hours", "two");
+
+        cache.invalidateBusiness(1L);
+
+        assertNull(cache.get(key(1L, "opening hours"), "opening hours"));
+        assertNull(cache.get(key(1L, "delivery"), "delivery"));
+        assertEquals("two", cache.get(key(2L, "opening hours"), "opening hours"));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Fills the cache to capacity with answers that have each been requested five times.
+     */
+    private static void fillWithPopularAnswers(AIResponseCache cache) {
+        for (int i = 0; i < MAX_ENTRIES - 1; i++) {
+            cache.put(key(1L, "popular " + i), "popular " + i, "answer");
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < MAX_ENTRIES - 1; i++) {
+                assertNotNull(cache.get(key(1L, "popular " + i), "popular " + i));
+            }
+        }
+    }
+
+    private static AIResponseCache.Key key(Long businessId, String normalizedPrompt) {
+        return new AIResponseCache.Key(businessId, normalizedPrompt);
+    }
+
+    private static AIResponseCache cache(long maxBytes, long ttlMillis) {
+        return new AIResponseCache(MAX_ENTRIES, maxBytes, ttlMillis, false, 0.92, 3, new SimpleMeterRegistry());
+    }
+}
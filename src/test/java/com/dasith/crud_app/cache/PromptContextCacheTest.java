@@ -0,0 +1,69 @@
+package com.dasith.crud_app.cache;
+
+import com.dasith.crud_app.event.CatalogChangedEvent;
+import com.dasith.crud_app.llm.LlmSettings;
+import com.dasith.crud_app.model.Business;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Loads that race with catalog changes. The loaders publish the change themselves, so the
+ * race happens at a known point without threads.
+ */
+class PromptContextCacheTest {
+
+    private final PromptContextCache cache = new PromptContextCache(10, 100, 20, 1500);
+
+    @Test
+    void loadIsStoredWhenNothingChanged() {
+        BusinessPromptContext loaded = cache.getOrLoad(1L, () -> context(1L));
+
+        assertSame(loaded, cache.getIfPresent(1L));
+    }
+
+    @Test
+    void changeToTheSameBusinessDuringALoadKeepsItOut() {
+        BusinessPromptContext loaded = cache.getOrLoad(1L, () -> {
+            cache.onCatalogChanged(CatalogChangedEvent.productsReplaced(1L));
+            return context(1L);
+        });
+
+        assertNotNull(loaded);
+        assertNull(cache.getIfPresent(1L));
+        // The next load is not affected by the old change
+        assertSame(cache.getOrLoad(1L, () -> context(1L)), cache.getIfPresent(1L));
+    }
+
+    @Test
+    void changeToAnotherBusinessDuringALoadDoesNotDiscardIt() {
+        BusinessPromptContext loaded = cache.getOrLoad(1L, () -> {
+            cache.onCatalogChanged(CatalogChangedEvent.productsReplaced(2L));
+            return context(1L);
+        });
+
+        assertSame(loaded, cache.getIfPresent(1L));
+    }
+
+    @Test
+    void failedLoadLeavesNothingBehind() {
+        assertThrows(IllegalStateException.class, () -> cache.getOrLoad(1L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertSame(cache.getOrLoad(1L, () -> context(1L)), cache.getIfPresent(1L));
+    }
+
+    private BusinessPromptContext context(Long id) {
+        Business business = new Business();
+        business.setId(id);
+        business.setName("Business " + id);
+        return cache.create(business, List.of(), new LlmSettings("test-model", Duration.ofSeconds(5), 0));
+    }
+}
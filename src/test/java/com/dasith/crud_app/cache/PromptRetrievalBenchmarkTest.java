@@ -0,0 +1,94 @@
+package com.dasith.crud_app.cache;
+
+import com.dasith.crud_app.llm.LlmSettings;
+import com.dasith.crud_app.model.Business;
+import com.dasith.crud_app.model.Product;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares prompt size and render latency of the retrieval-based prompt with the old
+ * "whole catalog" prompt for growing catalogs. The timing loop is tagged "benchmark" and logs
+ * a line per catalog size; the default build checks that retrieval keeps the prompt bounded
+ * and finds the product that was asked about.
+ */
+class PromptRetrievalBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptRetrievalBenchmarkTest.class);
+
+    private static final String[] NOUNS = {"shoe", "jacket", "lamp", "chair", "mug", "backpack", "watch", "scarf", "kettle", "desk"};
+    private static final String[] ADJECTIVES = {"red", "leather", "wooden", "waterproof", "vintage", "compact", "wireless", "cotton", "steel", "bamboo"};
+    private static final int TOKEN_BUDGET = 1500;
+    private static final LlmSettings SETTINGS = new LlmSettings("stub", Duration.ofSeconds(30), 0);
+    private static final String QUESTION = "Do you have a waterproof leather jacket under 100?";
+
+    @Test
+    void promptStaysWithinBudgetAndFindsTheProduct() {
+        BusinessPromptContext context = context(5_000);
+
+        String prompt = context.render(QUESTION);
+
+        assertTrue(prompt.length() < TOKEN_BUDGET * 4 + 2_000, "prompt should stay within the token budget");
+        assertTrue(prompt.contains("jacket"), "the asked-about product type should be retrieved");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void promptSizeStaysFlatAsCatalogGrows() {
+        for (int size : new int[]{100, 1_000, 10_000, 50_000}) {
+            BusinessPromptContext context = context(size);
+            long fullChars = catalog(size).stream().mapToLong(p -> p.getName().length() + p.getDescription().length() + 80).sum();
+            int iterations = 200;
+            String prompt = context.render(QUESTION);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                prompt = context.render(QUESTION);
+            }
+            long micros = (System.nanoTime() - start) / iterations / 1_000;
+            log.info("{} products: full catalog {} chars, prompt {} chars, render {} us", size, fullChars, prompt.length(), micros);
+
+            assertTrue(prompt.length() < TOKEN_BUDGET * 4 + 2_000, "prompt should stay within the token budget");
+        }
+    }
+
+    private static BusinessPromptContext context(int size) {
+        return new BusinessPromptContext(business(), catalog(size), SETTINGS, size, 20, TOKEN_BUDGET);
+    }
+
+    private static Business business() {
+        Business business = new Business();
+        business.setId(1L);
+        business.setName("Benchmark Store");
+        business.setDescription("General goods");
+        business.setIndustry("Retail");
+        business.setType("Online");
+        return business;
+    }
+
+    private static List<Product> catalog(int size) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            String noun = NOUNS[random.nextInt(NOUNS.length)];
+            String adjective = ADJECTIVES[random.nextInt(ADJECTIVES.length)];
+            Product product = new Product();
+            product.setId(id);
+            product.setName(adjective + " " + noun + " " + id);
+            product.setDescription("A " + adjective + " " + noun + " made for everyday use, model " + id);
+            product.setCategory(noun + "s");
+            product.setPrice(5 + random.nextInt(200) + 0.99);
+            product.setStock(random.nextInt(50));
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,120 @@
+package com.dasith.crud_app.cache;
+
+import com.dasith.crud_app.model.User;
+import com.dasith.crud_app.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Caching of user snapshots: reads within the TTL are served from memory, expired and
+ * invalidated entries are reloaded, and an invalidation inside a transaction is repeated
+ * after it completes.
+ */
+class UserPrincipalCacheTest {
+
+    private static final String EMAIL = "a@example.com";
+
+    private final UserRepository repository = mock(UserRepository.class);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void readsWithinTheTtlAreServedFromTheCache() {
+        when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(user("Ann")));
+        UserPrincipalCache cache = new UserPrincipalCache(repository, 60_000, 10);
+
+        assertEquals("Ann", cache.get(EMAIL).orElseThrow().firstName());
+        assertEquals("Ann", cache.get(EMAIL).orElseThrow().firstName());
+
+        verify(repository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() {
+        when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(user("Ann")), Optional.of(user("Bea")));
+        // A TTL of zero expires every entry by the next read
+        UserPrincipalCache cache = new UserPrincipalCache(repository, 0, 10);
+
+        assertEquals("Ann", cache.get(EMAIL).orElseThrow().firstName());
+        assertEquals("Bea", cache.get(EMAIL).orElseThrow().firstName());
+    }
+
+    @Test
+    void unknownEmailsAreNotCached() {
+        when(repository.findByEmail(EMAIL)).thenReturn(Optional.empty(), Optional.of(user("Ann")));
+        UserPrincipalCache cache = new UserPrincipalCache(repository, 60_000, 10);
+
+        assertTrue(cache.get(EMAIL).isEmpty());
+        assertEquals("Ann", cache.get(EMAIL).orElseThrow().firstName());
+    }
+
+    @Test
+    void invalidateDropsTheEntry() {
+        when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(user("Ann")), Optional.of(user("Bea")));
+        UserPrincipalCache cache = new UserPrincipalCache(repository, 60_000, 10);
+        cache.get(EMAIL);
+
+        cache.invalidate(EMAIL);
+
+        assertEquals("Bea", cache.get(EMAIL).orElseThrow().firstName());
+    }
+
+    @Test
+    void invalidateInsideATransactionDropsTheEntryAgainAfterCompletion() {
+        when(repository.findByEmail(EMAIL)).thenReturn(Optional.of(user("Ann")), Optional.of(user("Bea")));
+        UserPrincipalCache cache = new UserPrincipalCache(repository, 60_000, 10);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(EMAIL);
+        // A concurrent read of the row as it was before the commit
+        assertEquals("Ann", cache.get(EMAIL).orElseThrow().firstName());
+        assertEquals("Ann", cache.get(EMAIL).orElseThrow().firstName());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertEquals("Bea", cache.get(EMAIL).orElseThrow().firstName());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedBeyondMaxEntries() {
+        when(repository.findByEmail("a")).thenReturn(Optional.of(user("Ann")));
+        when(repository.findByEmail("b")).thenReturn(Optional.of(user("Bea")));
+        when(repository.findByEmail("c")).thenReturn(Optional.of(user("Cat")));
+        UserPrincipalCache cache = new UserPrincipalCache(repository, 60_000, 2);
+
+        cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c");
+        cache.get("a");
+        cache.get("b");
+
+        verify(repository, times(1)).findByEmail("a");
+        verify(repository, times(2)).findByEmail("b");
+    }
+
+    private static User user(String firstName) {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+        user.setFirstName(firstName);
+        user.setRole(User.Role.USER);
+        return user;
+    }
+}
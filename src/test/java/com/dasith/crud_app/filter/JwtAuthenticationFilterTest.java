@@ -0,0 +1,75 @@
+package com.dasith.crud_app.filter;
+
+import com.dasith.crud_app.cache.UserPrincipalCache;
+import com.dasith.crud_app.service.TokenRevocationService;
+import com.dasith.crud_app.util.JwtUtil;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Public routes skip token verification entirely; every other route, including the auth
+ * routes that read the principal, still verifies a bearer token.
+ */
+class JwtAuthenticationFilterTest {
+
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        when(jwtUtil.parseAndVerify(anyString())).thenThrow(new MalformedJwtException("bad token"));
+        filter = new JwtAuthenticationFilter(jwtUtil, mock(TokenRevocationService.class),
+                mock(UserPrincipalCache.class), new SimpleMeterRegistry(), 10_000);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/auth/login", "/api/auth/register", "/api/auth/refresh-token",
+            "/api/aiagent/ask", "/api/public/businesses/1", "/h2-console"})
+    void publicRoutesAreNotVerified(String path) throws Exception {
+        MockFilterChain chain = send("", path);
+
+        assertNotNull(chain.getRequest());
+        verify(jwtUtil, never()).parseAndVerify(anyString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/auth/profile", "/api/auth/logout", "/api/auth/login/extra",
+            "/api/businesses", "/api/publicity"})
+    void otherRoutesAreVerified(String path) throws Exception {
+        MockFilterChain chain = send("", path);
+
+        assertNotNull(chain.getRequest());
+        verify(jwtUtil, times(1)).parseAndVerify(anyString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/auth/login", "/api/public/businesses/1"})
+    void publicRoutesAreMatchedBelowTheContextPath(String path) throws Exception {
+        send("/app", path);
+
+        verify(jwtUtil, never()).parseAndVerify(anyString());
+    }
+
+    private MockFilterChain send(String contextPath, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", contextPath + path);
+        request.setContextPath(contextPath);
+        request.addHeader("Authorization", "Bearer token");
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain;
+    }
+}
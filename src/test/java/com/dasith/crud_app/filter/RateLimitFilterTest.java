@@ -0,0 +1,98 @@
+package com.dasith.crud_app.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Request costs and per-email keys for bodies sent without Content-Length, as with chunked
+ * transfer encoding. Buckets refill so slowly that nothing refills during a test.
+ */
+class RateLimitFilterTest {
+
+    private static final int MAX_INSPECTED_BODY = 1000;
+    private static final long BYTES_PER_TOKEN = 100;
+
+    private final RateLimitFilter filter = new RateLimitFilter(
+            new RateLimiter(1000, 600_000, new SimpleMeterRegistry()), new ObjectMapper(),
+            100, 0.001, 1, 0.001, 10, 0.001, 1000, 0.001, BYTES_PER_TOKEN, MAX_INSPECTED_BODY);
+
+    private final List<String> forwardedBodies = new ArrayList<>();
+    private final FilterChain chain = (request, response) ->
+            forwardedBodies.add(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+    @Test
+    void chunkedAiBodyIsChargedForTheBytesRead() throws Exception {
+        String prompt = "x".repeat(950);
+
+        // 1 + 950 / 100 = 10 tokens: the whole per-IP budget
+        assertEquals(200, send(chunked("/api/aiagent/1/generate", prompt)));
+        assertEquals(429, send(chunked("/api/aiagent/1/generate", "hi")));
+        assertEquals(List.of(prompt), forwardedBodies);
+    }
+
+    @Test
+    void smallChunkedAiBodiesCostOneTokenEach() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, send(chunked("/api/aiagent/1/generate", "{\"prompt\":\"hi\"}")));
+        }
+        assertEquals(429, send(chunked("/api/aiagent/1/generate", "{\"prompt\":\"hi\"}")));
+    }
+
+    @Test
+    void chunkedAiBodyAboveTheInspectionLimitIsRejected() throws Exception {
+        assertEquals(413, send(chunked("/api/aiagent/1/generate", "x".repeat(MAX_INSPECTED_BODY + 1))));
+        assertTrue(forwardedBodies.isEmpty());
+    }
+
+    @Test
+    void chunkedLoginIsLimitedPerEmail() throws Exception {
+        String body = "{\"email\":\"Victim@Example.com\",\"password\":\"guess\"}";
+
+        MockHttpServletRequest first = chunked("/api/auth/login", body);
+        first.setRemoteAddr("10.0.0.1");
+        assertEquals(200, send(first));
+        MockHttpServletRequest second = chunked("/api/auth/login", body.replace("Victim", "victim"));
+        second.setRemoteAddr("10.0.0.2");
+        assertEquals(429, send(second));
+        assertEquals(List.of(body), forwardedBodies);
+    }
+
+    @Test
+    void loginBodiesWithoutAnEmailShareOneKey() throws Exception {
+        assertEquals(200, send(chunked("/api/auth/login", "not json")));
+        assertEquals(429, send(chunked("/api/auth/login", "{\"password\":\"guess\"}")));
+    }
+
+    private int send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response.getStatus();
+    }
+
+    private static MockHttpServletRequest chunked(String path, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+        };
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
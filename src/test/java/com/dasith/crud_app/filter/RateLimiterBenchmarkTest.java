@@ -0,0 +1,79 @@
+package com.dasith.crud_app.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cost of one rate limit check under contention: many threads taking tokens from a shared
+ * set of keys. The contention run is tagged "benchmark" and logs average nanoseconds per
+ * check; the default build checks that limits hold.
+ */
+class RateLimiterBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiterBenchmarkTest.class);
+
+    private static final int THREADS = 16;
+    private static final int CHECKS_PER_THREAD = 200_000;
+    private static final int KEYS = 1_000;
+
+    @Test
+    @Tag("benchmark")
+    void checksStayInTheMicrosecondRangeUnderContention() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(100_000, 600_000, new SimpleMeterRegistry());
+        RateLimiter.Rule rule = new RateLimiter.Rule("bench", 10_000, 1_000_000);
+        AtomicLong totalNanos = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long begin = System.nanoTime();
+                for (int i = 0; i < CHECKS_PER_THREAD; i++) {
+                    limiter.tryAcquire(rule, "10.0.0." + ((i * 31 + seed) % KEYS), 1);
+                }
+                totalNanos.addAndGet(System.nanoTime() - begin);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long nanosPerCheck = totalNanos.get() / ((long) THREADS * CHECKS_PER_THREAD);
+        log.info("{} threads, {} keys: {} ns per check", THREADS, KEYS, nanosPerCheck);
+        assertTrue(nanosPerCheck < 50_000, "a check should take microseconds, not milliseconds");
+    }
+
+    @Test
+    void burstBeyondCapacityIsRejected() {
+        RateLimiter limiter = new RateLimiter(100, 600_000, new SimpleMeterRegistry());
+        RateLimiter.Rule rule = new RateLimiter.Rule("login", 5, 5);
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (limiter.tryAcquire(rule, "user@example.com", 1) == 0) {
+                allowed++;
+            }
+        }
+        assertEquals(5, allowed);
+        assertTrue(limiter.tryAcquire(rule, "user@example.com", 1) > 0);
+        assertEquals(0, limiter.tryAcquire(rule, "other@example.com", 1));
+    }
+}
@@ -0,0 +1,106 @@
+package com.dasith.crud_app.llm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AIMD limit changes for given round trip times; the limiter never reads the clock itself.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = 100_000_000L;
+    private static final long SLOW = 3 * FAST;
+
+    @Test
+    void rejectsCallsBeyondTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertFalse(limiter.hasHeadroom());
+
+        limiter.onIgnored();
+        assertEquals(1, limiter.inFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void fastCallsGrowTheLimitOnlyWhileItIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4);
+
+        // One call in flight out of four: the limit is not what holds throughput back
+        limiter.tryAcquire();
+        limiter.onSuccess(FAST);
+        assertEquals(4, limiter.limit());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        limiter.onSuccess(FAST);
+        assertEquals(5, limiter.limit());
+        limiter.onSuccess(FAST);
+        assertEquals(6, limiter.limit());
+        limiter.onSuccess(FAST);
+        assertEquals(6, limiter.limit());
+    }
+
+    @Test
+    void growthStopsAtTheMaximum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 8, 2.0, 0.5);
+
+        for (int i = 0; i < 8; i++) {
+            limiter.tryAcquire();
+        }
+        limiter.onSuccess(FAST);
+
+        assertEquals(8, limiter.limit());
+    }
+
+    @Test
+    void slowCallShrinksTheLimitMultiplicatively() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+
+        limiter.tryAcquire();
+        limiter.onSuccess(FAST);
+        limiter.tryAcquire();
+        limiter.onSuccess(SLOW);
+
+        assertEquals(4, limiter.limit());
+    }
+
+    @Test
+    void callWithinToleranceDoesNotShrink() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+
+        limiter.tryAcquire();
+        limiter.onSuccess(FAST);
+        limiter.tryAcquire();
+        limiter.onSuccess(2 * FAST);
+
+        assertEquals(8, limiter.limit());
+    }
+
+    @Test
+    void failuresShrinkTheLimitDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+
+        limiter.tryAcquire();
+        limiter.onFailure();
+        assertEquals(4, limiter.limit());
+
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire();
+            limiter.onFailure();
+        }
+        assertEquals(2, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 2, 64, 2.0, 0.5);
+    }
+}
@@ -0,0 +1,121 @@
+package com.dasith.crud_app.llm;
+
+import com.dasith.crud_app.llm.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Breaker transitions driven call by call. An open duration of zero makes the next acquire
+ * move to half-open at once, so no test waits on the clock.
+ */
+class CircuitBreakerTest {
+
+    private final List<State> transitions = new ArrayList<>();
+
+    @Test
+    void staysClosedUntilMinimumCallsAreRecorded() {
+        CircuitBreaker breaker = breaker(60_000);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        assertEquals(State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThresholdAndRejectsWhileOpen() {
+        CircuitBreaker breaker = breaker(60_000);
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(State.CLOSED, breaker.state());
+        breaker.onFailure();
+
+        assertEquals(State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(List.of(State.OPEN), transitions);
+    }
+
+    @Test
+    void onlyTheLastWindowOfCallsCounts() {
+        CircuitBreaker breaker = breaker(60_000);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess();
+        }
+        // The window holds 4 calls: the three old failures have rolled out
+        breaker.onFailure();
+
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void halfOpenAdmitsTrialCallsAndClosesWhenAllSucceed() {
+        CircuitBreaker breaker = breaker(0);
+        open(breaker);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(State.HALF_OPEN, breaker.state());
+        breaker.onSuccess();
+
+        assertEquals(State.CLOSED, breaker.state());
+        assertEquals(List.of(State.OPEN, State.HALF_OPEN, State.CLOSED), transitions);
+
+        // Closing starts a fresh window: one failure is below the minimum again
+        breaker.onFailure();
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void failedTrialCallReopens() {
+        CircuitBreaker breaker = breaker(0);
+        open(breaker);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(State.OPEN, breaker.state());
+        assertEquals(List.of(State.OPEN, State.HALF_OPEN, State.OPEN), transitions);
+    }
+
+    @Test
+    void ignoredTrialCallFreesItsSlot() {
+        CircuitBreaker breaker = breaker(0);
+        open(breaker);
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(State.HALF_OPEN, breaker.state());
+    }
+
+    private CircuitBreaker breaker(long openMillis) {
+        return new CircuitBreaker(4, 4, 0.5, openMillis, 2, transitions::add);
+    }
+
+    private static void open(CircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(State.OPEN, breaker.state());
+    }
+}
@@ -0,0 +1,68 @@
+package com.dasith.crud_app.llm;
+
+import com.dasith.crud_app.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * How the breaker and the limiter gate real calls: an open breaker and a full limit both
+ * fail fast, without invoking the upstream.
+ */
+class LlmResilienceTest {
+
+    private static final LlmSettings SETTINGS = new LlmSettings("test-model", Duration.ofSeconds(5), 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void openBreakerShortCircuitsWithoutCallingUpstream() {
+        LlmResilience resilience = resilience(1);
+
+        for (int i = 0; i < 2; i++) {
+            RuntimeException failure = assertThrows(RuntimeException.class,
+                    () -> resilience.execute(SETTINGS, this::failingCall).block());
+            assertEquals("upstream down", failure.getMessage());
+        }
+
+        assertThrows(CircuitOpenException.class, () -> resilience.execute(SETTINGS, this::failingCall).block());
+        assertEquals(2, calls.get());
+        assertEquals(1.0, registry.get("llm.calls").tag("outcome", "short_circuited").counter().count());
+        assertEquals(1.0, registry.get("llm.breaker.transitions").tag("to", "open").counter().count());
+    }
+
+    @Test
+    void fullLimitRejectsWithServiceUnavailable() {
+        LlmResilience resilience = resilience(1);
+        // Never completes, so it holds the only permit
+        resilience.execute(SETTINGS, () -> Mono.never()).subscribe();
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> resilience.execute(SETTINGS, this::failingCall).block());
+        assertEquals(0, calls.get());
+        assertEquals(1.0, registry.get("llm.calls").tag("outcome", "limited").counter().count());
+    }
+
+    /**
+     * Counts subscriptions, not supplier invocations: the upstream is only reached on subscribe.
+     */
+    private Mono<String> failingCall() {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new RuntimeException("upstream down"));
+        });
+    }
+
+    private LlmResilience resilience(int limit) {
+        // Breaker: window of 4, opens at 50% failures after 2 calls, stays open for a minute
+        return new LlmResilience(4, 2, 0.5, 60_000, 1, limit, limit, limit, 2.0, 0.5,
+                1, 1, 0, 0, registry);
+    }
+}
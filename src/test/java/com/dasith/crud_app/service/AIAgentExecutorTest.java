@@ -0,0 +1,58 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Admission control of the AI executor in both modes: one call running, one queued, and the
+ * next one rejected with {@link ServiceUnavailableException} (a 503) without waiting.
+ */
+class AIAgentExecutorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"bounded-elastic", "virtual"})
+    void rejectsOnceConcurrencyAndQueueAreFull(String mode) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AIAgentExecutor executor = new AIAgentExecutor(mode, 1, 1, registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<String> running = executor.submit(() -> {
+                started.countDown();
+                return await(release, "first");
+            }).toFuture();
+            // Until the first task has been picked up it also occupies the scheduler's queue
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = executor.submit(() -> await(release, "second")).toFuture();
+
+            ServiceUnavailableException rejected = assertThrows(ServiceUnavailableException.class,
+                    () -> executor.submit(() -> "third").block());
+            assertEquals("AI agent is busy, please try again shortly", rejected.getMessage());
+            assertEquals(1.0, registry.get("aiagent.executor.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("first", running.get(5, TimeUnit.SECONDS));
+            assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.destroy();
+        }
+    }
+
+    private static String await(CountDownLatch latch, String result) throws InterruptedException {
+        if (!latch.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Test latch was never released");
+        }
+        return result;
+    }
+}
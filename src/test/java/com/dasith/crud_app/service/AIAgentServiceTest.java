@@ -0,0 +1,154 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.cache.AIResponseCache;
+import com.dasith.crud_app.cache.PersistentResponseCache;
+import com.dasith.crud_app.cache.PromptContextCache;
+import com.dasith.crud_app.llm.LlmClient;
+import com.dasith.crud_app.llm.LlmResilience;
+import com.dasith.crud_app.llm.LlmSettings;
+import com.dasith.crud_app.model.Business;
+import com.dasith.crud_app.repository.AIAgentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Single-flight of identical questions: callers asking while an answer is being generated
+ * share one model call, and later callers are served from the response cache. The model is a
+ * fake that blocks until the test releases it, so both callers are known to overlap.
+ */
+class AIAgentServiceTest {
+
+    private static final Long BUSINESS_ID = 1L;
+    private static final String ANSWER = "We are open from 9 to 5.";
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private SimpleMeterRegistry registry;
+    private AIAgentExecutor executor;
+    private AIResponseCache responseCache;
+    private AIAgentService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        executor = new AIAgentExecutor("bounded-elastic", 4, 16, registry);
+        responseCache = new AIResponseCache(100, Long.MAX_VALUE, 60_000, false, 0.92, 3, registry);
+        service = service(60_000);
+    }
+
+    private AIAgentService service(long totalTimeoutMillis) {
+        LlmResilience resilience = new LlmResilience(50, 20, 0.5, 30_000, 3, 16, 2, 64, 2.0, 0.9,
+                200, 2000, 0.5, 0, registry);
+
+        Business business = new Business();
+        business.setId(BUSINESS_ID);
+        business.setName("Corner Shop");
+        PromptContextCache promptContexts = new PromptContextCache(10, 100, 20, 1500);
+        LlmSettings settings = new LlmSettings("test-model", Duration.ofSeconds(5), 0);
+        // Loaded up front, so the service never reaches the (mocked) repositories
+        promptContexts.getOrLoad(BUSINESS_ID, () -> promptContexts.create(business, List.of(), settings));
+
+        return new AIAgentService(mock(BusinessService.class), mock(ProductService.class),
+                mock(AIAgentRepository.class), new BlockingLlmClient(), responseCache,
+                mock(PersistentResponseCache.class), promptContexts, executor, resilience,
+                "test-model", 5000, 0, totalTimeoutMillis);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    void identicalQuestionsInFlightShareOneModelCall() throws Exception {
+        Mono<String> first = service.getGeminiResponse("When are you open?", BUSINESS_ID);
+        Mono<String> second = service.getGeminiResponse("  When are you open?  ", BUSINESS_ID);
+        assertSame(first, second);
+
+        CompletableFuture<String> firstAnswer = first.toFuture();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> secondAnswer = second.toFuture();
+        release.countDown();
+
+        assertEquals(ANSWER, firstAnswer.get(5, TimeUnit.SECONDS));
+        assertEquals(ANSWER, secondAnswer.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+
+        // Settled: the next caller gets the cached answer without another call
+        assertEquals(ANSWER, service.getGeminiResponse("When are you open?", BUSINESS_ID).block());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void differentQuestionsDoNotShareACall() {
+        release.countDown();
+
+        assertEquals(ANSWER, service.getGeminiResponse("When are you open?", BUSINESS_ID).block());
+        assertEquals(ANSWER, service.getGeminiResponse("Do you deliver?", BUSINESS_ID).block());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void answerStartedBeforeAnInvalidationIsNotCached() throws Exception {
+        CompletableFuture<String> answer = service.getGeminiResponse("When are you open?", BUSINESS_ID).toFuture();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        responseCache.invalidateBusiness(BUSINESS_ID);
+        release.countDown();
+
+        assertEquals(ANSWER, answer.get(5, TimeUnit.SECONDS));
+        assertEquals(0, responseCache.size());
+    }
+
+    @Test
+    void totalTimeoutBoundsTheSharedCall() {
+        AIAgentService bounded = service(100);
+
+        // The attempt timeout is 5 s; the whole call gives up first and falls back
+        String answer = bounded.getGeminiResponse("When are you open?", BUSINESS_ID).block(Duration.ofSeconds(5));
+
+        assertTrue(answer.startsWith("I'm currently experiencing high demand"));
+        assertEquals(0, responseCache.size());
+    }
+
+    private class BlockingLlmClient implements LlmClient {
+
+        @Override
+        public String generate(String model, String prompt) {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                if (!release.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Test latch was never released");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return ANSWER;
+        }
+
+        @Override
+        public Stream<String> generateStream(String model, String prompt) {
+            return Stream.of(generate(model, prompt));
+        }
+    }
+}
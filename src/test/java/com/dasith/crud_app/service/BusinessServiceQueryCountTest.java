@@ -0,0 +1,102 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.dto.BusinessView;
+import com.dasith.crud_app.model.AIAgent;
+import com.dasith.crud_app.model.Business;
+import com.dasith.crud_app.model.Product;
+import com.dasith.crud_app.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Listing businesses must cost the same number of queries for one business as for many,
+ * counted with Hibernate statistics against an in-memory H2 database.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.pagination.products-per-business=2",
+        // The Flyway migrations target PostgreSQL; let Hibernate create the H2 schema
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import({BusinessService.class, ProductService.class})
+class BusinessServiceQueryCountTest {
+
+    @Autowired
+    private BusinessService businessService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void listingQueryCountDoesNotGrowWithBusinesses() {
+        User few = createUser("few@example.com", 2);
+        User many = createUser("many@example.com", 25);
+        entityManager.flush();
+        entityManager.clear();
+
+        long fewQueries = countQueries(() -> assertEquals(2, businessService.getBusinessByUserId(few.getId()).size()));
+        long manyQueries = countQueries(() -> {
+            List<BusinessView> businesses = businessService.getBusinessByUserId(many.getId());
+            assertEquals(25, businesses.size());
+            // Three products each, two embedded
+            assertEquals(2, businesses.get(0).getProducts().size());
+            assertTrue(businesses.get(0).isMoreProducts());
+            assertNotNull(businesses.get(0).getAgent());
+        });
+
+        assertEquals(3, fewQueries);
+        assertEquals(fewQueries, manyQueries);
+    }
+
+    private long countQueries(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User createUser(String email, int businesses) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        entityManager.persist(user);
+
+        for (int b = 0; b < businesses; b++) {
+            Business business = new Business();
+            business.setName("Business " + b);
+            business.setUser(user);
+            entityManager.persist(business);
+            for (int p = 0; p < 3; p++) {
+                Product product = new Product();
+                product.setName("Product " + p);
+                product.setPrice(10.0 + p);
+                product.setBusiness(business);
+                entityManager.persist(product);
+            }
+            AIAgent agent = new AIAgent();
+            agent.setAgentName("Agent " + b);
+            agent.setBusiness(business);
+            entityManager.persist(agent);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,208 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.model.EmailOutboxMessage;
+import com.dasith.crud_app.repository.EmailOutboxRepository;
+import com.dasith.crud_app.util.SecretCipher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Sends outbox batches to a minimal SMTP server running in the test, which accepts every
+ * recipient except those starting with "bounce".
+ */
+class EmailOutboxDispatcherTest {
+
+    private SmtpStandIn smtp;
+    private EmailOutboxRepository repository;
+    private EmailTemplates templates;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStandIn();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+        repository = mock(EmailOutboxRepository.class);
+        templates = new EmailTemplates(new ObjectMapper(),
+                new SecretCipher(Base64.getEncoder().encodeToString(new byte[32])), "http://localhost:3000");
+        dispatcher = new EmailOutboxDispatcher(repository, mailSender, templates, null, "noreply@crudapp.com",
+                50, 3, 1_000, 60_000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtp.close();
+    }
+
+    @Test
+    void batchIsSentOverOneConnectionAndDeleted() {
+        List<EmailOutboxMessage> batch = List.of(message("a@example.com"), message("b@example.com"), message("c@example.com"));
+
+        dispatcher.send(batch);
+
+        assertEquals(List.of("a@example.com", "b@example.com", "c@example.com"), smtp.delivered());
+        assertEquals(1, smtp.connections());
+        batch.forEach(row -> verify(repository).delete(row));
+    }
+
+    @Test
+    void rejectedMessageIsRetriedWithBackoff() {
+        EmailOutboxMessage ok = message("a@example.com");
+        EmailOutboxMessage bounced = message("bounce@example.com");
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.send(List.of(ok, bounced));
+
+        assertEquals(List.of("a@example.com"), smtp.delivered());
+        verify(repository).delete(ok);
+        verify(repository, never()).delete(bounced);
+        verify(repository).save(bounced);
+        assertEquals(1, bounced.getAttempts());
+        assertEquals(EmailOutboxMessage.Status.PENDING, bounced.getStatus());
+        assertTrue(bounced.getNextAttemptAt().isAfter(before.plusNanos(900_000_000L)));
+    }
+
+    @Test
+    void messageIsDeadLetteredAfterMaxAttempts() {
+        EmailOutboxMessage bounced = message("bounce@example.com");
+        bounced.setAttempts(2);
+
+        dispatcher.send(List.of(bounced));
+
+        assertEquals(3, bounced.getAttempts());
+        assertEquals(EmailOutboxMessage.Status.DEAD, bounced.getStatus());
+        assertNull(bounced.getParameters());
+        verify(repository).save(bounced);
+    }
+
+    @Test
+    void resetTokenIsStoredEncryptedAndRenderedAtSendTime() {
+        String parameters = templates.passwordResetParameters("raw-reset-token");
+
+        assertFalse(parameters.contains("raw-reset-token"));
+        assertTrue(templates.render(EmailTemplates.PASSWORD_RESET, parameters)
+                .contains("http://localhost:3000/reset-password?token=raw-reset-token"));
+    }
+
+    private EmailOutboxMessage message(String recipient) {
+        return new EmailOutboxMessage(recipient, "Subject", EmailTemplates.WELCOME, templates.welcomeParameters("Ann"));
+    }
+
+    /**
+     * Just enough SMTP for JavaMail: greets, accepts or rejects recipients and records the
+     * recipient of every message whose DATA was received.
+     */
+    private static class SmtpStandIn implements AutoCloseable {
+
+        private final ServerSocket server = new ServerSocket(0);
+        private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger connections = new AtomicInteger();
+
+        SmtpStandIn() throws IOException {
+            Thread thread = new Thread(this::acceptLoop, "smtp-stand-in");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        List<String> delivered() {
+            return List.copyOf(delivered);
+        }
+
+        int connections() {
+            return connections.get();
+        }
+
+        private void acceptLoop() {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    connections.incrementAndGet();
+                    handle(socket);
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        }
+
+        private void handle(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII);
+            reply(out, "220 localhost ESMTP");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO", "MAIL", "NOOP" -> reply(out, "250 OK");
+                    case "RSET" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        String address = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                        if (address.startsWith("bounce")) {
+                            reply(out, "550 No such user");
+                        } else {
+                            recipients.add(address);
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // message content is not checked
+                        }
+                        delivered.addAll(recipients);
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "500 Unrecognised command");
+                }
+            }
+        }
+
+        private static void reply(PrintWriter out, String response) {
+            out.print(response + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.model.Business;
+import com.dasith.crud_app.model.Product;
+import com.dasith.crud_app.repository.BusinessRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Product export against an in-memory H2 database: one JSON object per line for NDJSON,
+ * RFC 4180 quoting for CSV, nulls kept as nulls or empty fields, and gzip on request.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        // The Flyway migrations target PostgreSQL; let Hibernate create the H2 schema
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ProductExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BusinessRepository businessRepository;
+
+    private ProductExportService exportService;
+    private Long businessId;
+    private Long firstId;
+    private Long secondId;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ProductExportService(jdbcTemplate, transactionManager, businessRepository, objectMapper, 1);
+        Business business = new Business();
+        business.setName("Shop");
+        businessId = entityManager.persist(business).getId();
+        firstId = product(business, "Pear", "Ripe, \"green\"\nand sweet", 2.5, "fruit", 7);
+        secondId = product(business, "Mystery box", null, null, null, null);
+        Business other = new Business();
+        other.setName("Other shop");
+        entityManager.persist(other);
+        product(other, "Plum", null, 1.0, "fruit", 1);
+        entityManager.flush();
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws IOException {
+        String[] lines = export(ProductExportService.Format.NDJSON, false).split("\n");
+
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(firstId.longValue(), first.get("id").asLong());
+        assertEquals("Pear", first.get("name").asText());
+        assertEquals("Ripe, \"green\"\nand sweet", first.get("description").asText());
+        assertEquals(2.5, first.get("price").asDouble());
+        assertEquals("fruit", first.get("category").asText());
+        assertEquals(7, first.get("stock").asInt());
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(secondId.longValue(), second.get("id").asLong());
+        assertTrue(second.get("description").isNull());
+        assertTrue(second.get("price").isNull());
+        assertTrue(second.get("stock").isNull());
+    }
+
+    @Test
+    void csvQuotesFieldsThatNeedItAndLeavesNullsEmpty() throws IOException {
+        String expected = "id,name,description,price,category,stock\r\n"
+                + firstId + ",Pear,\"Ripe, \"\"green\"\"\nand sweet\",2.5,fruit,7\r\n"
+                + secondId + ",Mystery box,,,,\r\n";
+
+        assertEquals(expected, export(ProductExportService.Format.CSV, false));
+    }
+
+    @Test
+    void gzipOutputDecompressesToThePlainExport() throws IOException {
+        assertEquals(export(ProductExportService.Format.CSV, false), export(ProductExportService.Format.CSV, true));
+    }
+
+    @Test
+    void formatIsParsedCaseInsensitively() {
+        assertEquals(ProductExportService.Format.NDJSON, ProductExportService.Format.parse("ndjson"));
+        assertEquals(ProductExportService.Format.CSV, ProductExportService.Format.parse("CSV"));
+        assertThrows(IllegalArgumentException.class, () -> ProductExportService.Format.parse("xml"));
+    }
+
+    private String export(ProductExportService.Format format, boolean gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(businessId, format, gzip, out);
+        byte[] bytes = out.toByteArray();
+        if (gzip) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = in.readAllBytes();
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Long product(Business business, String name, String description, Double price, String category,
+                         Integer stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setCategory(category);
+        product.setStock(stock);
+        product.setBusiness(business);
+        return entityManager.persist(product).getId();
+    }
+}
@@ -0,0 +1,128 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.dto.ImportResult;
+import com.dasith.crud_app.model.Business;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bulk import against an in-memory H2 database: row counts across batch boundaries, per-row
+ * error reporting and partial imports. The 200k-row throughput run is tagged "benchmark"
+ * and logs rows per second.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        // The Flyway migrations target PostgreSQL; let Hibernate create the H2 schema
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import({ProductImportService.class, JacksonAutoConfiguration.class})
+class ProductImportBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportBenchmarkTest.class);
+
+    private static final int BENCHMARK_ROWS = 200_000;
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long businessId;
+
+    @BeforeEach
+    void setUp() {
+        Business business = new Business();
+        business.setName("Importer");
+        businessId = entityManager.persistAndFlush(business).getId();
+    }
+
+    @Test
+    void csvImportInsertsEveryRowAcrossBatches() {
+        ImportResult result = importCsv(2_500); // batches of 1000
+
+        assertTrue(result.isComplete());
+        assertEquals(2_500, result.getImported());
+        assertEquals(2_500, countProducts());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void csvImportRunsAtBatchSpeed() {
+        ImportResult result = importCsv(BENCHMARK_ROWS);
+
+        log.info("Imported {} rows in {} ms ({} rows/s)",
+                result.getImported(), result.getDurationMs(), result.getImported() * 1000 / Math.max(1, result.getDurationMs()));
+        assertEquals(BENCHMARK_ROWS, result.getImported());
+        assertTrue(result.getDurationMs() < 60_000, "a batched import should take seconds");
+    }
+
+    @Test
+    void invalidRowsAreReportedWithTheirLine() {
+        String ndjson = """
+                {"name": "Hammer", "price": 12.5, "stock": 3}
+                {"price": 1}
+                not json
+                {"name": "Saw", "price": "cheap"}
+
+                {"name": "Drill", "category": "power tools"}
+                """;
+
+        ImportResult result = importService.importProducts(businessId,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ProductImportService.Format.NDJSON);
+
+        assertEquals(2, result.getImported());
+        assertEquals(3, result.getFailed());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals(3, result.getErrors().get(1).getLine());
+        assertEquals(4, result.getErrors().get(2).getLine());
+        assertEquals(2, countProducts());
+    }
+
+    @Test
+    void brokenInputKeepsRowsReadBeforeIt() {
+        String csv = "name,price\nHammer,12.5\nSaw,8\n\"Drill,30\n";
+
+        ImportResult result = importService.importProducts(businessId,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ProductImportService.Format.CSV);
+
+        assertFalse(result.isComplete());
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Import stopped: Unterminated quoted field"));
+        assertEquals(2, countProducts());
+    }
+
+    private ImportResult importCsv(int rows) {
+        StringBuilder csv = new StringBuilder("name,price,stock,category\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Product ").append(i).append(',').append(i % 100).append(".99,").append(i % 50).append(",tools\n");
+        }
+        return importService.importProducts(businessId,
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), ProductImportService.Format.CSV);
+    }
+
+    private long countProducts() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE business_id = ?", Long.class, businessId);
+    }
+}
@@ -0,0 +1,130 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.dto.ProductSearchResult;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Product search on 1M generated products in one business, against a real PostgreSQL so
+ * that the migrated indexes are in play. Runs only when SEARCH_BENCHMARK_JDBC_URL is set
+ * (with SEARCH_BENCHMARK_USER / SEARCH_BENCHMARK_PASSWORD); everything happens in a
+ * throwaway {@code search_benchmark} schema that is cleaned first.
+ *
+ * Logs the average latency per query shape; the assertions check the results and that
+ * the text query uses the full-text index.
+ */
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "SEARCH_BENCHMARK_JDBC_URL", matches = ".+")
+class ProductSearchBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchBenchmarkTest.class);
+
+    private static final String SCHEMA = "search_benchmark";
+    private static final int PRODUCTS = 1_000_000;
+    private static final int RUNS = 50;
+
+    private static JdbcTemplate jdbcTemplate;
+    private static ProductSearchService searchService;
+    private static long businessId;
+
+    @BeforeAll
+    static void generateCatalog() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getenv("SEARCH_BENCHMARK_JDBC_URL"),
+                System.getenv("SEARCH_BENCHMARK_USER"), System.getenv("SEARCH_BENCHMARK_PASSWORD"));
+        Properties properties = new Properties();
+        properties.setProperty("currentSchema", SCHEMA);
+        dataSource.setConnectionProperties(properties);
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .schemas(SCHEMA)
+                .locations("classpath:db/migration/postgresql")
+                .cleanDisabled(false)
+                // as spring.flyway.postgresql.transactional-lock=false, needed by CREATE INDEX CONCURRENTLY
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load();
+        flyway.clean();
+        flyway.migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        businessId = jdbcTemplate.queryForObject(
+                "INSERT INTO businesses (name) VALUES ('Benchmark') RETURNING id", Long.class);
+        long start = System.nanoTime();
+        jdbcTemplate.update("""
+                INSERT INTO products (name, description, price, category, stock, business_id)
+                SELECT 'Product ' || g,
+                       (ARRAY['steel', 'oak', 'cotton', 'glass', 'carbon'])[1 + g % 5] || ' item number ' || g,
+                       (g % 1000) + 0.99,
+                       'category-' || (g % 20),
+                       g % 7,
+                       ?
+                FROM generate_series(1, ?) AS g
+                """, businessId, PRODUCTS);
+        jdbcTemplate.execute("ANALYZE products");
+        log.info("Generated {} products in {} ms", PRODUCTS, (System.nanoTime() - start) / 1_000_000);
+
+        searchService = new ProductSearchService(new NamedParameterJdbcTemplate(dataSource), dataSource, 50, 200, 50);
+    }
+
+    @Test
+    void textSearchUsesTheFullTextIndex() {
+        ProductSearchResult result = time("text", () -> searchService.search(
+                businessId, "oak", null, null, null, false, null, 50));
+        assertEquals(50, result.getItems().size());
+        assertNotNull(result.getNextCursor());
+        assertEquals(4, result.getCategoryCounts().size()); // "oak" rows are g % 5 == 1, so g % 20 is 1, 6, 11 or 16
+        assertEquals(PRODUCTS / 5, result.getCategoryCounts().values().stream().mapToLong(Long::longValue).sum());
+
+        List<String> plan = jdbcTemplate.queryForList("""
+                EXPLAIN SELECT id FROM products
+                WHERE business_id = ?
+                  AND to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, '')) @@ plainto_tsquery('simple', 'oak')
+                """, String.class, businessId);
+        assertTrue(plan.stream().anyMatch(line -> line.contains("idx_products_search_text")), String.join("\n", plan));
+    }
+
+    @Test
+    void filteredSearchAndNextPage() {
+        ProductSearchResult first = time("filters", () -> searchService.search(
+                businessId, "steel", "category-5", 100.0, 500.0, true, null, 50));
+        assertFalse(first.getItems().isEmpty());
+        first.getItems().forEach(product -> {
+            assertEquals("category-5", product.getCategory());
+            assertTrue(product.getPrice() >= 100.0 && product.getPrice() <= 500.0);
+            assertTrue(product.getStock() > 0);
+        });
+
+        ProductSearchResult next = time("next page", () -> searchService.search(
+                businessId, "steel", "category-5", 100.0, 500.0, true, first.getNextCursor(), 50));
+        assertTrue(next.getItems().get(0).getId() > first.getItems().get(first.getItems().size() - 1).getId());
+    }
+
+    private static ProductSearchResult time(String name, Supplier<ProductSearchResult> query) {
+        ProductSearchResult result = query.get(); // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            result = query.get();
+        }
+        log.info("{}: {} ms per search over {} products",
+                name, String.format("%.2f", (System.nanoTime() - start) / 1_000_000.0 / RUNS), PRODUCTS);
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.dto.ProductSearchResult;
+import com.dasith.crud_app.dto.ProductView;
+import com.dasith.crud_app.model.Business;
+import com.dasith.crud_app.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Product search filters, facet counts and cursor pages against an in-memory H2 database,
+ * where the text match is the LIKE fallback.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        // The Flyway migrations target PostgreSQL; let Hibernate create the H2 schema
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import(ProductSearchService.class)
+class ProductSearchServiceTest {
+
+    @Autowired
+    private ProductSearchService searchService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long businessId;
+    private Long hammer;
+    private Long table;
+    private Long chair;
+    private Long hose;
+    private Long box;
+
+    @BeforeEach
+    void setUp() {
+        Business business = business("Hardware");
+        businessId = business.getId();
+        hammer = product(business, "Steel Hammer", "Heavy tool", 20.0, "tools", 5);
+        table = product(business, "Oak table", "Solid wood", 300.0, "furniture", 0);
+        chair = product(business, "Steel chair", "Metal seat", 80.0, "furniture", 2);
+        hose = product(business, "Garden hose", "20m, STEEL reinforced", 35.0, "garden", 10);
+        box = product(business, "Mystery box", null, null, null, 1);
+        product(business("Other"), "Steel nails", "Not in this business", 5.0, "tools", 100);
+        entityManager.flush();
+    }
+
+    @Test
+    void textMatchesNameOrDescriptionIgnoringCase() {
+        ProductSearchResult result = search("steel", null, null, null, false, null, 10);
+
+        assertEquals(List.of(hammer, chair, hose), ids(result));
+        assertEquals(Map.of("furniture", 1L, "tools", 1L, "garden", 1L), result.getCategoryCounts());
+    }
+
+    @Test
+    void likeWildcardsInTheQueryAreLiteral() {
+        assertTrue(search("%", null, null, null, false, null, 10).getItems().isEmpty());
+        assertTrue(search("_", null, null, null, false, null, 10).getItems().isEmpty());
+    }
+
+    @Test
+    void categoryFilterDoesNotNarrowTheFacets() {
+        ProductSearchResult result = search("steel", "furniture", null, null, false, null, 10);
+
+        assertEquals(List.of(chair), ids(result));
+        assertEquals(Map.of("furniture", 1L, "tools", 1L, "garden", 1L), result.getCategoryCounts());
+    }
+
+    @Test
+    void priceRangeIsInclusiveAndSkipsProductsWithoutPrice() {
+        assertEquals(List.of(hammer, chair, hose), ids(search(null, null, 20.0, 80.0, false, null, 10)));
+        assertEquals(List.of(table), ids(search(null, null, 100.0, null, false, null, 10)));
+        assertEquals(List.of(hammer), ids(search(null, null, null, 20.0, false, null, 10)));
+    }
+
+    @Test
+    void inStockSkipsProductsWithoutStock() {
+        ProductSearchResult result = search(null, null, null, null, true, null, 10);
+
+        assertEquals(List.of(hammer, chair, hose, box), ids(result));
+        assertEquals(Map.of("tools", 1L, "furniture", 1L, "garden", 1L, "", 1L), result.getCategoryCounts());
+    }
+
+    @Test
+    void facetsCountEveryCategoryIncludingNone() {
+        ProductSearchResult result = search(null, null, null, null, false, null, 10);
+
+        assertEquals(Map.of("furniture", 2L, "tools", 1L, "garden", 1L, "", 1L), result.getCategoryCounts());
+        assertEquals("furniture", result.getCategoryCounts().keySet().iterator().next());
+    }
+
+    @Test
+    void cursorContinuesWhereThePreviousPageEnded() {
+        ProductSearchResult first = search(null, null, null, null, false, null, 2);
+        assertEquals(List.of(hammer, table), ids(first));
+        assertNotNull(first.getNextCursor());
+        assertNotNull(first.getCategoryCounts());
+
+        ProductSearchResult second = search(null, null, null, null, false, first.getNextCursor(), 2);
+        assertEquals(List.of(chair, hose), ids(second));
+        assertNull(second.getCategoryCounts());
+
+        ProductSearchResult last = search(null, null, null, null, false, second.getNextCursor(), 2);
+        assertEquals(List.of(box), ids(last));
+        assertNull(last.getNextCursor());
+    }
+
+    private ProductSearchResult search(String query, String category, Double minPrice, Double maxPrice,
+                                       boolean inStock, String cursor, int size) {
+        return searchService.search(businessId, query, category, minPrice, maxPrice, inStock, cursor, size);
+    }
+
+    private static List<Long> ids(ProductSearchResult result) {
+        return result.getItems().stream().map(ProductView::getId).toList();
+    }
+
+    private Business business(String name) {
+        Business business = new Business();
+        business.setName(name);
+        return entityManager.persist(business);
+    }
+
+    private Long product(Business business, String name, String description, Double price, String category, Integer stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setCategory(category);
+        product.setStock(stock);
+        product.setBusiness(business);
+        return entityManager.persist(product).getId();
+    }
+}
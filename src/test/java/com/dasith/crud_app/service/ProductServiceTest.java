@@ -0,0 +1,134 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.dto.CursorPage;
+import com.dasith.crud_app.model.Business;
+import com.dasith.crud_app.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Keyset product pages against an in-memory H2 database, in particular the step from the
+ * rows with a sort value to the rows without one, and the batched delete of a catalog.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        // The Flyway migrations target PostgreSQL; let Hibernate create the H2 schema
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import(ProductService.class)
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long businessId;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Business business = new Business();
+        business.setName("Shop");
+        businessId = entityManager.persist(business).getId();
+        product(business, "pear", 30.0);
+        product(business, null, null);
+        product(business, "apple", 10.0);
+        product(business, "fig", 20.0);
+        product(business, "kiwi", null);
+        product(business, "banana", 10.0);
+        entityManager.flush();
+    }
+
+    @Test
+    void priceOrderPutsProductsWithoutPriceLastAtEveryPageSize() {
+        List<Long> expected = List.of(id(3), id(6), id(4), id(1), id(2), id(5));
+        for (int size = 1; size <= 7; size++) {
+            assertEquals(expected, readAll("price", size), "page size " + size);
+        }
+    }
+
+    @Test
+    void nameOrderPutsProductsWithoutNameLastAtEveryPageSize() {
+        List<Long> expected = List.of(id(3), id(6), id(4), id(5), id(1), id(2));
+        for (int size = 1; size <= 7; size++) {
+            assertEquals(expected, readAll("name", size), "page size " + size);
+        }
+    }
+
+    @Test
+    void pageThatEndsOnTheLastValueContinuesAmongTheNulls() {
+        CursorPage<Product> first = productService.getProductsPage(businessId, null, 4, "price");
+        assertEquals(List.of(id(3), id(6), id(4), id(1)), first.getItems().stream().map(Product::getId).toList());
+
+        CursorPage<Product> second = productService.getProductsPage(businessId, first.getNextCursor(), 4, "price");
+        assertEquals(List.of(id(2), id(5)), second.getItems().stream().map(Product::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void deleteEndingOnAShortBatchRemovesOnlyTheBusinessProducts() {
+        assertDeletedInBatchesOf(4);
+    }
+
+    @Test
+    void deleteEndingOnAnEmptyBatchRemovesOnlyTheBusinessProducts() {
+        assertDeletedInBatchesOf(3);
+    }
+
+    private void assertDeletedInBatchesOf(int batchSize) {
+        Business other = new Business();
+        other.setName("Other shop");
+        entityManager.persist(other);
+        product(other, "plum", 5.0);
+        entityManager.flush();
+        ReflectionTestUtils.setField(productService, "deleteBatchSize", batchSize);
+
+        assertEquals(6, productService.deleteProductsInBatches(businessId));
+        assertEquals(0, countProducts(businessId));
+        assertEquals(1, countProducts(other.getId()));
+    }
+
+    private long countProducts(Long businessId) {
+        return entityManager.getEntityManager()
+                .createQuery("SELECT COUNT(p) FROM Product p WHERE p.business.id = :businessId", Long.class)
+                .setParameter("businessId", businessId)
+                .getSingleResult();
+    }
+
+    private List<Long> readAll(String sort, int size) {
+        List<Long> read = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Product> page = productService.getProductsPage(businessId, cursor, size, sort);
+            page.getItems().forEach(product -> read.add(product.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return read;
+    }
+
+    private Long id(int position) {
+        return ids.get(position - 1);
+    }
+
+    private void product(Business business, String name, Double price) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setBusiness(business);
+        ids.add(entityManager.persist(product).getId());
+    }
+}
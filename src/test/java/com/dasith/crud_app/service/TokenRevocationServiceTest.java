@@ -0,0 +1,105 @@
+package com.dasith.crud_app.service;
+
+import com.dasith.crud_app.model.RevokedToken;
+import com.dasith.crud_app.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Revocation against an in-memory H2 database. Rows written straight through the repository
+ * stand in for revocations made by another instance. Each revoke commits in its own
+ * transaction, so the tests run without the usual rollback and clear the table afterwards.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        // The Flyway migrations target PostgreSQL; let Hibernate create the H2 schema
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationServiceTest {
+
+    private static final Instant EXPIRES_AT = Instant.now().plus(1, ChronoUnit.HOURS);
+
+    @Autowired
+    private RevokedTokenRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TokenRevocationService(repository, transactionManager, 1000, 0.01, 60_000);
+        service.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void revokedTokenIsReportedAndUnknownTokenIsNot() {
+        assertTrue(service.revoke("jti-1", "a@example.com", EXPIRES_AT));
+
+        assertTrue(service.isRevoked("jti-1"));
+        assertFalse(service.isRevoked("jti-2"));
+    }
+
+    @Test
+    void secondRevokeOfTheSameTokenReportsReuse() {
+        assertTrue(service.revoke("jti-1", "a@example.com", EXPIRES_AT));
+        assertFalse(service.revoke("jti-1", "a@example.com", EXPIRES_AT));
+    }
+
+    @Test
+    void refreshTokenRevokedByAnotherInstanceIsReusedEvenIfTheFilterHasNotSeenIt() {
+        revokedElsewhere("jti-1", LocalDateTime.now());
+
+        assertFalse(service.revoke("jti-1", "a@example.com", EXPIRES_AT));
+    }
+
+    @Test
+    void syncPicksUpRevocationsMadeByAnotherInstance() {
+        revokedElsewhere("jti-1", LocalDateTime.now());
+        // The filter has not seen the id yet and answers without the database
+        assertFalse(service.isRevoked("jti-1"));
+
+        service.sync();
+
+        assertTrue(service.isRevoked("jti-1"));
+    }
+
+    @Test
+    void syncPicksUpRevocationsCommittedAfterTheLastSyncWithAnEarlierTimestamp() {
+        service.sync();
+        // Stamped before the sync above but committed after it, e.g. a slow transaction, or a
+        // revoke racing the rebuild in setUp
+        revokedElsewhere("jti-1", LocalDateTime.now().minusSeconds(30));
+
+        service.sync();
+
+        assertTrue(service.isRevoked("jti-1"));
+    }
+
+    private void revokedElsewhere(String tokenId, LocalDateTime revokedAt) {
+        repository.save(new RevokedToken(tokenId, "a@example.com",
+                LocalDateTime.ofInstant(EXPIRES_AT, ZoneId.systemDefault()), revokedAt));
+    }
+}
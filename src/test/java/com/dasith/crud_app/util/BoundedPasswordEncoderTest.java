@@ -0,0 +1,89 @@
+package com.dasith.crud_app.util;
+
+import com.dasith.crud_app.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cost calibration, the upgrade check on stored hashes, and rejection once the hashing pool
+ * and its queue are full. Costs are kept at BCrypt's minimum so the tests stay fast.
+ */
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    void encodedPasswordsMatch() {
+        encoder = new BoundedPasswordEncoder(1, 1, 1000, 4, 4, meterRegistry);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+    }
+
+    @Test
+    void calibrationStaysWithinTheCostBounds() {
+        encoder = new BoundedPasswordEncoder(1, 1, 0, 5, 5, meterRegistry);
+        assertEquals(5, encoder.cost());
+        encoder.destroy();
+
+        // A target no hash can exceed takes every step up to the maximum
+        encoder = new BoundedPasswordEncoder(1, 1, Long.MAX_VALUE, 4, 6, meterRegistry);
+        assertEquals(6, encoder.cost());
+    }
+
+    @Test
+    void onlyHashesBelowTheCalibratedCostAreUpgraded() {
+        encoder = new BoundedPasswordEncoder(1, 1, 0, 5, 5, meterRegistry);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret")));
+        assertFalse(encoder.upgradeEncoding("{noop}secret"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    void requestsBeyondThePoolAndQueueAreRejected() throws InterruptedException {
+        encoder = new BoundedPasswordEncoder(1, 1, 0, 4, 4, meterRegistry);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(encoder, "executor");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> { });
+
+        assertThrows(ServiceUnavailableException.class, () -> encoder.encode("secret"));
+        assertEquals(1.0, meterRegistry.counter("auth.password.hash.rejected").count());
+
+        release.countDown();
+    }
+}
@@ -0,0 +1,100 @@
+package com.dasith.crud_app.util;
+
+import com.dasith.crud_app.model.JwtSigningKey;
+import com.dasith.crud_app.repository.JwtSigningKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Persisted signing keys: stored encrypted, shared by instances through the key table, and
+ * unusable without the encryption key. The table is an in-memory map behind a mocked repository.
+ */
+class JwtUtilTest {
+
+    private final Map<String, JwtSigningKey> table = new ConcurrentHashMap<>();
+    private final JwtSigningKeyRepository repository = mock(JwtSigningKeyRepository.class);
+    private final SecretCipher cipher = cipher((byte) 1);
+
+    @BeforeEach
+    void setUp() {
+        when(repository.insertIfAbsent(anyString(), anyString(), any(), any())).thenAnswer(call -> {
+            String kid = call.getArgument(0);
+            JwtSigningKey key = new JwtSigningKey(kid, call.getArgument(1), call.getArgument(2), call.getArgument(3));
+            return table.putIfAbsent(kid, key) == null ? 1 : 0;
+        });
+        when(repository.findByVerifyUntilAfter(any())).thenAnswer(call -> {
+            LocalDateTime now = call.getArgument(0);
+            return table.values().stream().filter(key -> key.getVerifyUntil().isAfter(now)).toList();
+        });
+    }
+
+    @Test
+    void keyMaterialIsStoredEncrypted() {
+        jwtUtil(cipher);
+
+        assertEquals(2, table.size());
+        for (JwtSigningKey key : table.values()) {
+            assertFalse(isRawKey(key.getKeyMaterial()), key.getKid());
+            assertEquals(32, Base64.getDecoder().decode(cipher.decrypt(key.getKeyMaterial())).length);
+        }
+    }
+
+    @Test
+    void instancesShareTheStoredKeys() {
+        JwtUtil first = jwtUtil(cipher);
+        JwtUtil second = jwtUtil(cipher);
+
+        String token = first.generateToken(User.withUsername("user@example.com").password("x").roles("USER").build());
+
+        assertEquals("user@example.com", second.parseAndVerify(token).email());
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void storedKeysCannotBeLoadedWithAnotherEncryptionKey() {
+        jwtUtil(cipher);
+
+        assertThrows(IllegalStateException.class, () -> jwtUtil(cipher((byte) 2)));
+    }
+
+    private JwtUtil jwtUtil(SecretCipher secretCipher) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 7_200_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", 100);
+        ReflectionTestUtils.setField(jwtUtil, "keyRepository", repository);
+        ReflectionTestUtils.setField(jwtUtil, "secretCipher", secretCipher);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static boolean isRawKey(String material) {
+        try {
+            return Base64.getDecoder().decode(material).length == 32;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static SecretCipher cipher(byte fill) {
+        byte[] key = new byte[32];
+        Arrays.fill(key, fill);
+        return new SecretCipher(Base64.getEncoder().encodeToString(key));
+    }
+}
@@ -0,0 +1,108 @@
+package com.dasith.crud_app.util;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Per-request cost of authenticating a bearer token: the old filter path (three parses, key
+ * and parser rebuilt each time), a single uncached parse, and a cached verification. The
+ * timing loop is tagged "benchmark" and logs average nanoseconds per request; the default
+ * build only checks that all paths agree.
+ */
+class JwtVerificationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtVerificationBenchmarkTest.class);
+
+    private static final String SECRET = "benchmarkSecretKeyThatIsAtLeast256BitsLongForHMACAlgorithm";
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    void allVerificationPathsAgree() {
+        JwtUtil uncached = jwtUtil(0);
+        JwtUtil cached = jwtUtil(10_000);
+        String token = cached.generateToken(user());
+        String legacyToken = legacyToken();
+
+        assertEquals("bench@example.com", cached.parseAndVerify(token).email());
+        assertEquals("bench@example.com", cached.parseAndVerify(token).email());
+        assertEquals("USER", uncached.parseAndVerify(token).role());
+        assertEquals(legacyFilterPath(legacyToken), cached.parseAndVerify(token).email());
+        // Tokens signed with the plain secret (no kid) are rejected unless explicitly accepted.
+        assertThrows(JwtException.class, () -> uncached.parseAndVerify(legacyToken));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void parseOnceAndCacheAreCheaperThanTripleParse() {
+        JwtUtil uncached = jwtUtil(0);
+        JwtUtil cached = jwtUtil(10_000);
+        String token = cached.generateToken(user());
+        String legacyToken = legacyToken();
+
+        long legacy = measure(() -> legacyFilterPath(legacyToken));
+        long parseOnce = measure(() -> uncached.parseAndVerify(token).email());
+        long hit = measure(() -> cached.parseAndVerify(token).email());
+        log.info("ns/request: three parses (before) {}, parse once {}, verified cache hit {}", legacy, parseOnce, hit);
+    }
+
+    private static UserDetails user() {
+        return User.withUsername("bench@example.com").password("x").roles("USER").build();
+    }
+
+    private static String legacyToken() {
+        return Jwts.builder()
+                .subject("bench@example.com")
+                .claim("role", "USER")
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000L))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+    }
+
+    private static String legacyFilterPath(String token) {
+        String email = null;
+        for (int i = 0; i < 3; i++) {
+            email = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                    .parseSignedClaims(token).getPayload().getSubject();
+        }
+        return email;
+    }
+
+    private static long measure(Runnable request) {
+        for (int i = 0; i < WARMUP; i++) {
+            request.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            request.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static JwtUtil jwtUtil(int cacheEntries) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 7_200_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", cacheEntries);
+        ReflectionTestUtils.setField(jwtUtil, "configuredKeys", "bench1:" + Base64.getEncoder().encodeToString(
+                "benchmarkSigningKeyOfThirtyTwoBy".getBytes()) + ",bench2:" + Base64.getEncoder().encodeToString(
+                "anotherBenchmarkSigningKey32Byte".getBytes()));
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}